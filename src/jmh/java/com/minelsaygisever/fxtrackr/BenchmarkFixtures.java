@@ -0,0 +1,67 @@
+package com.minelsaygisever.fxtrackr;
+
+import com.minelsaygisever.fxtrackr.domain.Currency;
+import com.minelsaygisever.fxtrackr.repository.CurrencyRepository;
+import com.minelsaygisever.fxtrackr.service.CurrencyRegistry;
+import com.minelsaygisever.fxtrackr.validation.ValidationUtil;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Deterministic test data shared by the benchmarks, sized like a real Fixer response (~170 currencies).
+ */
+public final class BenchmarkFixtures {
+
+    public static final int CURRENCY_COUNT = 170;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * ISO 4217 codes known to the JDK, in alphabetical order.
+     */
+    public static List<String> currencyCodes() {
+        return java.util.Currency.getAvailableCurrencies().stream()
+                .map(java.util.Currency::getCurrencyCode)
+                .filter(code -> code.matches("[A-Z]{3}"))
+                .sorted()
+                .limit(CURRENCY_COUNT)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Rates against the base currency with the same scale as Fixer's, from a fixed seed.
+     */
+    public static Map<String, BigDecimal> rates() {
+        Random random = new Random(42);
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        for (String code : currencyCodes()) {
+            rates.put(code, BigDecimal.valueOf(0.01 + random.nextDouble() * 5_000).setScale(6, RoundingMode.HALF_UP));
+        }
+        return rates;
+    }
+
+    public static CurrencyRegistry currencyRegistry() {
+        CurrencyRepository repository = mock(CurrencyRepository.class, withSettings().stubOnly());
+        when(repository.findAllByIsActiveTrue()).thenReturn(currencyCodes().stream()
+                .map(code -> new Currency(code, code, true))
+                .collect(Collectors.toList()));
+        CurrencyRegistry registry = new CurrencyRegistry(repository);
+        registry.reload();
+        return registry;
+    }
+
+    public static ValidationUtil validationUtil() {
+        return new ValidationUtil(currencyRegistry());
+    }
+}
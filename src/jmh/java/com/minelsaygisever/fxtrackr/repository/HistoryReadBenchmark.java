@@ -0,0 +1,149 @@
+package com.minelsaygisever.fxtrackr.repository;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.dto.ConversionHistoryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of a day's conversion history from H2: the constructor projection the repository uses
+ * ({@link CurrencyConversionRepository#findHistoryByDay}), against loading managed entities and mapping
+ * them to {@link ConversionHistoryResponse}, as history reads did before. Scores are per page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryReadBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private CurrencyConversionRepository repository;
+    private EntityManagerFactory entityManagerFactory;
+    private int day;
+    private int page;
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = CurrencyConversion.class)
+    @EnableJpaRepositories(basePackageClasses = CurrencyConversionRepository.class)
+    static class PersistenceConfig {
+    }
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PersistenceConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:history_benchmark", "spring.jpa.show-sql=false")
+                .run();
+        repository = context.getBean(CurrencyConversionRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+        Instant start = Instant.parse("2025-04-30T00:00:00Z");
+        day = CurrencyConversion.dayOf(start);
+        List<CurrencyConversion> conversions = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            conversions.add(CurrencyConversion.builder()
+                    .id(UUID.randomUUID().toString())
+                    .sourceCurrency("USD")
+                    .targetCurrency("EUR")
+                    .sourceAmount(new BigDecimal("100.000000"))
+                    .convertedAmount(new BigDecimal("92.340000"))
+                    .exchangeRate(new BigDecimal("0.923400"))
+                    .timestamp(start.plusMillis(i))
+                    .conversionDay(day)
+                    .build());
+        }
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(status -> repository.insertAll(conversions));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ConversionHistoryResponse> projection() {
+        return repository.findHistoryByDay(day, nextPage()).getContent();
+    }
+
+    @Benchmark
+    public List<ConversionHistoryResponse> entitiesThenMap(Blackhole blackhole) {
+        PageRequest pageable = nextPage();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<CurrencyConversion> entities = entityManager.createQuery(
+                            "SELECT c FROM CurrencyConversion c WHERE c.conversionDay = :day ORDER BY c.timestamp",
+                            CurrencyConversion.class)
+                    .setParameter("day", day)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultList();
+            // The page query also counts the day's rows
+            blackhole.consume(entityManager.createQuery(
+                            "SELECT count(c) FROM CurrencyConversion c WHERE c.conversionDay = :day", Long.class)
+                    .setParameter("day", day)
+                    .getSingleResult());
+            List<ConversionHistoryResponse> responses = new ArrayList<>(entities.size());
+            for (CurrencyConversion conversion : entities) {
+                responses.add(new ConversionHistoryResponse(conversion.getId(), conversion.getSourceCurrency(),
+                        conversion.getTargetCurrency(), conversion.getSourceAmount(), conversion.getConvertedAmount(),
+                        conversion.getExchangeRate(), conversion.getTimestamp()));
+            }
+            return responses;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Walks through the pages of the day so that both paths read the same mix of offsets.
+     */
+    private PageRequest nextPage() {
+        page = (page + 1) % (ROWS / pageSize);
+        return PageRequest.of(page, pageSize, Sort.by("timestamp"));
+    }
+}
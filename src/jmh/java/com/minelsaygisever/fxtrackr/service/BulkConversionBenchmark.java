@@ -0,0 +1,162 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.BenchmarkFixtures;
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import com.minelsaygisever.fxtrackr.validation.ValidationUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Bulk upload processing per row: CSV parsing alone, and the full row pipeline (parse, validate, convert,
+ * build entities and results) with persistence stubbed out. Scores and the gc profiler's
+ * {@code gc.alloc.rate.norm} are per row.
+ * <p>
+ * {@link #baselineRows} repeats the per-row work of the original bulk loop (columns looked up by name, a copy
+ * of the rate map and rates re-parsed from strings per row, builders for entity and result), so that
+ * {@code processRows} with a parallelism of 1 can be compared against it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkConversionBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private byte[] csv;
+    private BulkConversionProcessor processor;
+    private Map<String, BigDecimal> rates;
+    private ValidationUtil validationUtil;
+
+    @Setup
+    public void setUp() {
+        List<String> codes = BenchmarkFixtures.currencyCodes();
+        Random random = new Random(7);
+        StringBuilder builder = new StringBuilder("amount,from,to\n");
+        for (int i = 0; i < ROWS; i++) {
+            builder.append(random.nextInt(100_000)).append('.').append(random.nextInt(100)).append(',')
+                    .append(codes.get(random.nextInt(codes.size()))).append(',')
+                    .append(codes.get(random.nextInt(codes.size()))).append('\n');
+        }
+        csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        RateSnapshotService rateSnapshotService = new RateSnapshotService(null, null, null, null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(rateSnapshotService, "localTtlSeconds", TimeUnit.DAYS.toSeconds(1));
+        rates = BenchmarkFixtures.rates();
+        validationUtil = BenchmarkFixtures.validationUtil();
+        rateSnapshotService.publish(rates);
+
+        processor = new BulkConversionProcessor(
+                rateSnapshotService,
+                mock(CurrencyConversionRepository.class, withSettings().stubOnly()),
+                new TransactionTemplate(mock(PlatformTransactionManager.class, withSettings().stubOnly())),
+                validationUtil,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(processor, "chunkSize", 1000);
+        ReflectionTestUtils.setField(processor, "parallelism", parallelism);
+        processor.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        processor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void parseCsv(Blackhole blackhole) throws IOException {
+        try (CSVParser parser = CSVFormat.DEFAULT.withHeader("amount", "from", "to").withFirstRecordAsHeader()
+                .parse(new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            for (CSVRecord record : parser) {
+                blackhole.consume(record.get(0));
+                blackhole.consume(record.get(1));
+                blackhole.consume(record.get(2));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void processRows(Blackhole blackhole) {
+        processor.process(new ByteArrayInputStream(csv), blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void baselineRows(Blackhole blackhole) throws IOException {
+        try (CSVParser parser = CSVFormat.DEFAULT.withHeader("amount", "from", "to").withFirstRecordAsHeader()
+                .parse(new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8))) {
+            int line = 1;
+            for (CSVRecord record : parser) {
+                BulkConversionResult.BulkConversionResultBuilder result = BulkConversionResult.builder().line(line++);
+                try {
+                    BigDecimal amount = new BigDecimal(record.get("amount").trim());
+                    String from = validationUtil.validateAndNormalizeCurrencyCode(record.get("from").trim());
+                    String to = validationUtil.validateAndNormalizeCurrencyCode(record.get("to").trim());
+                    amount = validationUtil.validateAndNormalizeAmount(amount);
+
+                    Map<String, BigDecimal> rateCopy = new HashMap<>(rates);
+                    BigDecimal rate = new BigDecimal(rateCopy.get(to).toString())
+                            .divide(new BigDecimal(rateCopy.get(from).toString()), 6, RoundingMode.HALF_UP);
+                    BigDecimal convertedAmount = amount.multiply(rate).setScale(6, RoundingMode.HALF_UP);
+
+                    CurrencyConversion entity = CurrencyConversion.builder()
+                            .id(UUID.randomUUID().toString())
+                            .sourceCurrency(from)
+                            .targetCurrency(to)
+                            .sourceAmount(amount)
+                            .convertedAmount(convertedAmount)
+                            .exchangeRate(rate)
+                            .build();
+                    blackhole.consume(entity);
+                    result.transactionId(entity.getId()).convertedAmount(convertedAmount).code("SUCCESS").message("OK");
+                } catch (RuntimeException e) {
+                    result.code("INVALID_ROW_FORMAT").message(e.getMessage());
+                }
+                blackhole.consume(result.build());
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.BenchmarkFixtures;
+import com.minelsaygisever.fxtrackr.domain.RateSnapshot;
+import com.minelsaygisever.fxtrackr.domain.RateSnapshotCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate resolution: the per-conversion cross-rate lookup, and the cost of turning the rates read from
+ * Redis (legacy hash or binary snapshot) into a snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateCalculationBenchmark {
+
+    private RateSnapshot snapshot;
+    private Map<Object, Object> redisRates;
+    private byte[] encodedRates;
+    private String from;
+    private String to;
+
+    @Setup
+    public void setUp() {
+        Map<String, BigDecimal> rates = BenchmarkFixtures.rates();
+        snapshot = new RateSnapshot(1, Instant.now(), System.currentTimeMillis(), rates);
+
+        // Redis hands the hash back as strings
+        redisRates = new LinkedHashMap<>();
+        rates.forEach((code, rate) -> redisRates.put(code, rate.toPlainString()));
+        encodedRates = RateSnapshotCodec.encode(rates, Instant.now());
+
+        List<String> codes = BenchmarkFixtures.currencyCodes();
+        from = codes.get(codes.size() / 3);
+        to = codes.get(codes.size() * 2 / 3);
+    }
+
+    @Benchmark
+    public BigDecimal triangularCalculation() {
+        return CurrencyConversionService.performTriangularCalculation(from, to, snapshot);
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> convertMapToBigDecimal() {
+        return ExchangeRateCacheService.convertMapToBigDecimal(redisRates);
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> decodeBinarySnapshot() {
+        return RateSnapshotCodec.decode(encodedRates).getRates();
+    }
+
+    @Benchmark
+    public RateSnapshot buildSnapshot() {
+        return new RateSnapshot(2, Instant.now(), System.currentTimeMillis(),
+                ExchangeRateCacheService.convertMapToBigDecimal(redisRates));
+    }
+}
@@ -0,0 +1,56 @@
+package com.minelsaygisever.fxtrackr.validation;
+
+import com.minelsaygisever.fxtrackr.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Currency code and amount validation, as done for every single conversion and every bulk row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private ValidationUtil validationUtil;
+    private String canonicalCode;
+    private String paddedLowerCaseCode;
+    private BigDecimal amount;
+
+    @Setup
+    public void setUp() {
+        validationUtil = BenchmarkFixtures.validationUtil();
+        canonicalCode = "USD";
+        paddedLowerCaseCode = new String(" usd ");
+        amount = new BigDecimal("1234.5678");
+    }
+
+    @Benchmark
+    public String validateCanonicalCurrencyCode() {
+        return validationUtil.validateAndNormalizeCurrencyCode(canonicalCode);
+    }
+
+    @Benchmark
+    public String validatePaddedLowerCaseCurrencyCode() {
+        return validationUtil.validateAndNormalizeCurrencyCode(paddedLowerCaseCode);
+    }
+
+    @Benchmark
+    public BigDecimal validateAmount() {
+        return validationUtil.validateAndNormalizeAmount(amount);
+    }
+}
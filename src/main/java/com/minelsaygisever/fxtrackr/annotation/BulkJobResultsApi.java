@@ -0,0 +1,59 @@
+package com.minelsaygisever.fxtrackr.annotation;
+
+import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.dto.ErrorResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag(name="Bulk Conversion", description="Endpoint for CSV-based bulk conversions")
+@Operation(
+        summary     = "Download bulk conversion job results",
+        description = "Downloads the results of a completed job in the format chosen at submission (NDJSON or CSV)."
+)
+@ApiResponses({
+        @ApiResponse(
+                responseCode = "200",
+                description  = "Results in line order",
+                content      = {
+                        @Content(
+                                mediaType = "application/x-ndjson",
+                                schema    = @Schema(implementation = BulkConversionResult.class)
+                        ),
+                        @Content(
+                                mediaType = "text/csv",
+                                examples  = @ExampleObject(value = "line,transactionId,convertedAmount,code,message\n1,fa85f64-5717-4562-b3fc-2c963f66afa6,92.340000,SUCCESS,OK")
+                        )
+                }
+        ),
+        @ApiResponse(
+                responseCode = "404",
+                description  = "Unknown or expired job",
+                content      = @Content(
+                        mediaType = "application/json",
+                        schema    = @Schema(implementation = ErrorResponse.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "409",
+                description  = "The job has not completed or has failed",
+                content      = @Content(
+                        mediaType = "application/json",
+                        schema    = @Schema(implementation = ErrorResponse.class),
+                        examples=@ExampleObject(value="{\"code\":\"JOB_NOT_COMPLETED\",\"message\":\"Bulk conversion job 'abc' is RUNNING; results are available once it has completed.\",\"timestamp\":\"2025-05-02T14:30:00.000Z\"}")
+                )
+        )
+})
+public @interface BulkJobResultsApi {
+}
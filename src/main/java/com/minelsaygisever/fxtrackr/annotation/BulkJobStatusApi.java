@@ -0,0 +1,46 @@
+package com.minelsaygisever.fxtrackr.annotation;
+
+import com.minelsaygisever.fxtrackr.dto.BulkConversionJobResponse;
+import com.minelsaygisever.fxtrackr.dto.ErrorResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag(name="Bulk Conversion", description="Endpoint for CSV-based bulk conversions")
+@Operation(
+        summary     = "Get bulk conversion job status",
+        description = "Returns the status and progress of a bulk conversion job: rows processed, "
+                + "success and error counts, and throughput."
+)
+@ApiResponses({
+        @ApiResponse(
+                responseCode = "200",
+                description  = "Job found",
+                content      = @Content(
+                        mediaType = "application/json",
+                        schema    = @Schema(implementation = BulkConversionJobResponse.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "404",
+                description  = "Unknown or expired job",
+                content      = @Content(
+                        mediaType = "application/json",
+                        schema    = @Schema(implementation = ErrorResponse.class),
+                        examples=@ExampleObject(value="{\"code\":\"JOB_NOT_FOUND\",\"message\":\"Bulk conversion job 'abc' does not exist or has expired.\",\"timestamp\":\"2025-05-02T14:30:00.000Z\"}")
+                )
+        )
+})
+public @interface BulkJobStatusApi {
+}
@@ -0,0 +1,63 @@
+package com.minelsaygisever.fxtrackr.annotation;
+
+import com.minelsaygisever.fxtrackr.dto.ErrorResponse;
+import com.minelsaygisever.fxtrackr.dto.HistoricalRateResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Meta-annotation for documenting the /convert/at endpoint.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag(name = "Currency Conversion", description = "Endpoint to convert a single currency amount")
+@Operation(
+        summary = "Convert at a past point in time",
+        description = "Converts an amount with the rates that were in effect at the given past timestamp (ISO-8601). The conversion is not saved."
+)
+@ApiResponses({
+        @ApiResponse(
+                responseCode = "200",
+                description = "Conversion calculated successfully",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = HistoricalRateResponse.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "Invalid parameter, or a timestamp in the future",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name  = "InvalidTimestamp",
+                                value = "{ \"code\": \"INVALID_PARAMETER_FORMAT\", \"message\": \"must be a date in the past or in the present\", \"timestamp\": \"2025-05-02T10:15:30.000Z\" }"
+                        )
+                )
+        ),
+        @ApiResponse(
+                responseCode = "404",
+                description = "No rates were recorded at or before the timestamp",
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ErrorResponse.class),
+                        examples = @ExampleObject(
+                                name  = "NoSnapshot",
+                                value = "{ \"code\": \"RATE_SNAPSHOT_NOT_FOUND\", \"message\": \"No exchange rates were recorded at or before 2020-01-01T00:00:00Z.\", \"timestamp\": \"2025-05-02T10:16:00.000Z\" }"
+                        )
+                )
+        )
+})
+public @interface HistoricalConversionApi {
+}
@@ -0,0 +1,55 @@
+package com.minelsaygisever.fxtrackr.annotation;
+
+import com.minelsaygisever.fxtrackr.dto.BulkConversionJobResponse;
+import com.minelsaygisever.fxtrackr.dto.ErrorResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag(name="Bulk Conversion", description="Endpoint for CSV-based bulk conversions")
+@Operation(
+        summary     = "Submit a bulk conversion job",
+        description = "Upload a CSV (headers: amount,from,to) to be converted in the background. "
+                + "Returns a job id immediately; poll the job for progress and download the results once it has completed."
+)
+@ApiResponses({
+        @ApiResponse(
+                responseCode = "202",
+                description  = "Job accepted and queued",
+                content      = @Content(
+                        mediaType = "application/json",
+                        schema    = @Schema(implementation = BulkConversionJobResponse.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description  = "Invalid CSV header or failed to parse CSV",
+                content      = @Content(
+                        mediaType = "application/json",
+                        schema    = @Schema(implementation = ErrorResponse.class),
+                        examples=@ExampleObject(value="{\"code\":\"INVALID_CSV_HEADER\",\"message\":\"missing columns [to]\",\"timestamp\":\"2025-05-02T14:30:00.000Z\"}")
+                )
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description  = "The job queue is full",
+                content      = @Content(
+                        mediaType = "application/json",
+                        schema    = @Schema(implementation = ErrorResponse.class),
+                        examples=@ExampleObject(value="{\"code\":\"JOB_QUEUE_FULL\",\"message\":\"Too many bulk conversion jobs are queued. Please try again later.\",\"timestamp\":\"2025-05-02T14:30:00.000Z\"}")
+                )
+        )
+})
+public @interface SubmitBulkJobApi {
+}
@@ -0,0 +1,114 @@
+package com.minelsaygisever.fxtrackr.client;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits Fixer API calls across all instances with one token bucket in Redis, so that the free-tier quota holds
+ * no matter how many instances run. Each permit is taken by an atomic script ({@code scripts/token-bucket.lua})
+ * that refills the bucket from the Redis clock and returns how long the caller has to wait for its turn.
+ * <p>
+ * While Redis cannot be reached, each instance falls back to a local limiter at
+ * {@code fixer.rate-limit.fallback-permits-per-second}. A caller whose turn would come later than
+ * {@code fixer.rate-limit.max-wait-ms} is denied instead of queued.
+ */
+@Slf4j
+@Component
+public class FixerRateLimiter {
+
+    private static final String BUCKET_KEY = "fixer:rate_limit";
+    private static final RedisScript<Long> TOKEN_BUCKET =
+            RedisScript.of(new ClassPathResource("scripts/token-bucket.lua"), Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter localLimiter;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long maxWaitMillis;
+
+    private volatile boolean usingFallback;
+
+    public FixerRateLimiter(RedisTemplate<String, Object> redisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${fixer.rate-limit.permits-per-second}") double permitsPerSecond,
+                            @Value("${fixer.rate-limit.burst}") int burst,
+                            @Value("${fixer.rate-limit.max-wait-ms}") long maxWaitMillis,
+                            @Value("${fixer.rate-limit.fallback-permits-per-second}") double fallbackPermitsPerSecond) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxWaitMillis = maxWaitMillis;
+        this.localLimiter = RateLimiter.create(fallbackPermitsPerSecond);
+    }
+
+    /**
+     * Blocks until this instance may call the given Fixer endpoint and records how long that took.
+     * @throws ExternalApiException if the permit would only be granted after the maximum wait.
+     */
+    public void acquire(String endpoint) {
+        long start = System.nanoTime();
+        String limiter = "redis";
+        Long waitMillis = reserveShared();
+        if (waitMillis == null) {
+            limiter = "local";
+            waitMillis = localLimiter.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS) ? 0L : -1L;
+        }
+
+        if (waitMillis < 0) {
+            permitCounter(limiter, "denied").increment();
+            throw new ExternalApiException("Fixer API rate limit reached; no call permitted within " + maxWaitMillis + " ms.");
+        }
+        Uninterruptibles.sleepUninterruptibly(waitMillis, TimeUnit.MILLISECONDS);
+        permitCounter(limiter, "granted").increment();
+        Timer.builder("fxtrackr.fixer.ratelimiter.wait")
+                .description("Time spent waiting for a Fixer API rate limiter permit")
+                .tag("endpoint", endpoint)
+                .tag("limiter", limiter)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the wait before the reserved permit may be used, -1 if denied, or null if Redis is unavailable.
+     */
+    private Long reserveShared() {
+        try {
+            Long waitMillis = redisTemplate.execute(TOKEN_BUCKET, List.of(BUCKET_KEY), permitsPerSecond, burst, maxWaitMillis);
+            if (usingFallback) {
+                usingFallback = false;
+                log.info("Redis is reachable again; Fixer calls are rate limited cluster-wide.");
+            }
+            return waitMillis;
+        } catch (DataAccessException e) {
+            if (!usingFallback) {
+                usingFallback = true;
+                log.warn("Cannot reach Redis for the Fixer rate limit ({}); limiting this instance locally.", e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private Counter permitCounter(String limiter, String result) {
+        return Counter.builder("fxtrackr.fixer.ratelimiter.permits")
+                .description("Fixer API rate limiter permits granted and denied")
+                .tag("limiter", limiter)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
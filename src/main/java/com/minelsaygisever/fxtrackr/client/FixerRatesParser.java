@@ -0,0 +1,104 @@
+package com.minelsaygisever.fxtrackr.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads Fixer's {@code /latest} response token by token, straight from the HTTP body.
+ * The {@code rates} object goes directly into the map that the rate snapshot is built from, with each
+ * rate parsed from its JSON text into a BigDecimal exactly once. No response DTO, no JSON tree, and
+ * nothing but {@code success}, {@code error.info} and {@code rates} is kept; other fields are skipped.
+ */
+final class FixerRatesParser {
+
+    // A full Fixer response holds about 170 currencies
+    private static final int EXPECTED_RATES = 256;
+
+    private FixerRatesParser() {
+    }
+
+    /**
+     * @return the rates against the base currency, keyed by currency code
+     * @throws ExternalApiException if the response is malformed, reports an error, or has no rates
+     */
+    static Map<String, BigDecimal> parse(InputStream body, JsonFactory jsonFactory) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ExternalApiException("Malformed response from Fixer API.");
+            }
+            boolean success = false;
+            String errorInfo = null;
+            Map<String, BigDecimal> rates = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "success":
+                        success = value == JsonToken.VALUE_TRUE;
+                        break;
+                    case "rates":
+                        rates = parseRates(parser, value);
+                        break;
+                    case "error":
+                        errorInfo = parseErrorInfo(parser, value);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+
+            if (!success) {
+                throw new ExternalApiException("Fixer API returned an error: " + (errorInfo != null ? errorInfo : "Unknown error."));
+            }
+            if (rates == null) {
+                throw new ExternalApiException("Fixer API response contains no rates.");
+            }
+            return rates;
+        }
+    }
+
+    private static Map<String, BigDecimal> parseRates(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Map<String, BigDecimal> rates = new HashMap<>(EXPECTED_RATES);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String code = parser.getCurrentName();
+            JsonToken rate = parser.nextToken();
+            if (rate == JsonToken.VALUE_NUMBER_INT || rate == JsonToken.VALUE_NUMBER_FLOAT) {
+                rates.put(code, parser.getDecimalValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rates;
+    }
+
+    private static String parseErrorInfo(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String info = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("info".equals(field)) {
+                info = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return info;
+    }
+}
@@ -1,13 +1,17 @@
 package com.minelsaygisever.fxtrackr.client;
 
-import com.google.common.util.concurrent.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.minelsaygisever.fxtrackr.dto.FixerError;
-import com.minelsaygisever.fxtrackr.dto.FixerResponse;
 import com.minelsaygisever.fxtrackr.dto.FixerSymbolsResponse;
 import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
@@ -16,6 +20,8 @@ import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Slf4j
 @Component
@@ -23,6 +29,10 @@ import java.util.Optional;
 public class FixerRestClient {
 
     private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final CircuitBreaker fixerCircuitBreaker;
+    private final FixerRateLimiter fixerRateLimiter;
 
     @Value("${fixer.api.key}")
     private String apiKey;
@@ -30,22 +40,24 @@ public class FixerRestClient {
     @Value("${fixer.api.url}")
     private String apiUrl;
 
-    // Using free-tier Fixer API: throttle to 1 request every 2.5 seconds to avoid rate-limit errors
-    private final RateLimiter rateLimiter = RateLimiter.create(0.4);
-
     /**
      * Fetches all supported currency symbols from the Fixer API.
      * This method is intended to be called once on application startup to populate the database.
-     * It respects the class-level rate limiter.
+     * It respects the cluster-wide rate limit and the circuit breaker.
      *
      * @return A map of currency codes to currency names (e.g., "USD" -> "United States Dollar").
      * @throws ExternalApiException if the API call fails or returns an unsuccessful response.
      */
     public Map<String, String> getSupportedSymbols() {
-        rateLimiter.acquire();
+        return callThroughCircuitBreaker("symbols", this::fetchSupportedSymbols);
+    }
+
+    private Map<String, String> fetchSupportedSymbols() {
         String url = String.format("%s/symbols?access_key=%s", apiUrl, apiKey);
         log.debug("Calling Fixer Symbols URL: {}", url);
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
         try {
             ResponseEntity<FixerSymbolsResponse> response = restTemplate.getForEntity(url, FixerSymbolsResponse.class);
 
@@ -62,35 +74,85 @@ public class FixerRestClient {
                 throw new ExternalApiException("Fixer API returned an error: " + info);
             }
 
+            outcome = "success";
             return symbolsResponse.getSymbols();
         } catch (RestClientException ex) {
             throw new ExternalApiException("Failed to call Fixer API's /symbols endpoint", ex);
+        } finally {
+            sample.stop(requestTimer("symbols", outcome));
         }
     }
 
     /**
      * Fetches the latest exchange rates from the Fixer API against the base currency (EUR).
-     * This is the primary method for getting rate data.
+     * This is the primary method for getting rate data. The response body is streamed through
+     * {@link FixerRatesParser} rather than bound to a DTO.
      * @return A map of currency codes to their rates against the base currency.
+     * @throws ExternalApiException if the call fails, or right away while the circuit breaker is open.
      */
     public Map<String, BigDecimal> getLatestRates() {
-        rateLimiter.acquire();
+        return callThroughCircuitBreaker("latest", this::fetchLatestRates);
+    }
+
+    private Map<String, BigDecimal> fetchLatestRates() {
         String url = String.format("%s/latest?access_key=%s", apiUrl, apiKey);
         log.debug("Calling Fixer URL for all latest rates.");
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
         try {
-            ResponseEntity<FixerResponse> response = restTemplate.getForEntity(url, FixerResponse.class);
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                throw new ExternalApiException("Unexpected HTTP response from Fixer API: HTTP " + response.getStatusCode());
-            }
-            FixerResponse fixerResponse = response.getBody();
-            if (!fixerResponse.isSuccess()) {
-                String info = Optional.ofNullable(fixerResponse.getError()).map(FixerError::getInfo).orElse("Unknown error.");
-                throw new ExternalApiException("Fixer API returned an error: " + info);
-            }
-            return fixerResponse.getRates();
+            Map<String, BigDecimal> rates = restTemplate.execute(url, HttpMethod.GET, null,
+                    response -> FixerRatesParser.parse(response.getBody(), objectMapper.getFactory()));
+            outcome = "success";
+            return rates;
         } catch (RestClientException ex) {
             throw new ExternalApiException("Failed to call Fixer API's /latest endpoint", ex);
+        } finally {
+            sample.stop(requestTimer("latest", outcome));
         }
     }
+
+    /**
+     * Runs a Fixer call if the circuit breaker permits it and records its outcome there.
+     * While the breaker is open the call is rejected before waiting on the rate limiter, so callers fail fast
+     * instead of queueing up behind the read timeout of an upstream that is down.
+     */
+    private <T> T callThroughCircuitBreaker(String endpoint, Supplier<T> call) {
+        if (!fixerCircuitBreaker.tryAcquirePermission()) {
+            Counter.builder("fxtrackr.fixer.circuit.rejected")
+                    .description("Fixer API calls rejected while the circuit breaker was open")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .increment();
+            throw new ExternalApiException("Fixer API calls are suspended after repeated failures (circuit breaker "
+                    + fixerCircuitBreaker.getState() + ").");
+        }
+        try {
+            fixerRateLimiter.acquire(endpoint);
+        } catch (RuntimeException e) {
+            // Not a call to Fixer, so it must not count as one
+            fixerCircuitBreaker.releasePermission();
+            throw e;
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            fixerCircuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            fixerCircuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Latency of Fixer API calls; the count of the failure series is the error count.
+     */
+    private Timer requestTimer(String endpoint, String outcome) {
+        return Timer.builder("fxtrackr.fixer.requests")
+                .description("Fixer API call latency")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
@@ -1,17 +1,144 @@
 package com.minelsaygisever.fxtrackr.config;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP transport for the Fixer API: a pool of keep-alive connections, so that refreshes reuse a warm
+ * TLS connection instead of opening a new one each time, and a circuit breaker that stops calling Fixer
+ * while it keeps failing.
+ */
+@Slf4j
 @Configuration
 public class AppConfig {
+
+    @Bean
+    public PoolingHttpClientConnectionManager fixerConnectionManager(
+            @Value("${fixer.http.max-connections}") int maxConnections,
+            @Value("${fixer.http.max-connections-per-route}") int maxConnectionsPerRoute
+    ) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        // Re-check a connection that sat idle this long before leasing it, instead of failing on a stale one
+        connectionManager.setValidateAfterInactivity(2_000);
+        return connectionManager;
+    }
+
+    /**
+     * Publishes {@code httpcomponents.httpclient.pool.*} gauges (leased, available, pending, max) tagged {@code httpclient=fixer}.
+     */
+    @Bean
+    public MeterBinder fixerConnectionPoolMetrics(PoolingHttpClientConnectionManager fixerConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(fixerConnectionManager, "fixer");
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient fixerHttpClient(
+            PoolingHttpClientConnectionManager fixerConnectionManager,
+            MeterRegistry meterRegistry,
+            @Value("${fixer.http.connect-timeout-ms}") int connectTimeoutMillis,
+            @Value("${fixer.http.read-timeout-ms}") int readTimeoutMillis,
+            @Value("${fixer.http.pool-timeout-ms}") int poolTimeoutMillis,
+            @Value("${fixer.http.keep-alive-seconds}") long keepAliveSeconds
+    ) {
+        Counter newConnections = connectionCounter(meterRegistry, "new");
+        Counter reusedConnections = connectionCounter(meterRegistry, "reused");
+        long maxKeepAliveMillis = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+        // A connection that has carried more than one request was reused from the pool
+        HttpResponseInterceptor connectionReuse = (response, context) -> {
+            HttpConnection connection = HttpClientContext.adapt(context).getConnection();
+            if (connection != null && connection.getMetrics().getRequestCount() > 1) {
+                reusedConnections.increment();
+            } else {
+                newConnections.increment();
+            }
+        };
+
+        return HttpClients.custom()
+                .setConnectionManager(fixerConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutMillis)
+                        .setSocketTimeout(readTimeoutMillis)
+                        .setConnectionRequestTimeout(poolTimeoutMillis)
+                        .build())
+                // Honour the server's Keep-Alive header, but never keep a connection longer than configured
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverMillis > 0 ? Math.min(serverMillis, maxKeepAliveMillis) : maxKeepAliveMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveSeconds, TimeUnit.SECONDS)
+                .addInterceptorLast(connectionReuse)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient fixerHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(fixerHttpClient));
+    }
+
+    /**
+     * Opens once {@code failure-rate-threshold} percent of the last {@code sliding-window-size} Fixer calls failed
+     * or took longer than the slow-call threshold, rejects every call for {@code open-duration-ms}, then lets
+     * {@code half-open-calls} trial calls decide whether to close again.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        var factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(2_000);
-        factory.setReadTimeout(5_000);
-        return new RestTemplate(factory);
+    public CircuitBreaker fixerCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${fixer.circuit-breaker.failure-rate-threshold}") float failureRateThreshold,
+            @Value("${fixer.circuit-breaker.slow-call-ms}") long slowCallMillis,
+            @Value("${fixer.circuit-breaker.sliding-window-size}") int slidingWindowSize,
+            @Value("${fixer.circuit-breaker.minimum-calls}") int minimumCalls,
+            @Value("${fixer.circuit-breaker.open-duration-ms}") long openDurationMillis,
+            @Value("${fixer.circuit-breaker.half-open-calls}") int halfOpenCalls
+    ) {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("fixer", CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallMillis))
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(Duration.ofMillis(openDurationMillis))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build());
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Fixer API circuit breaker: {}", event.getStateTransition()));
+        // 0 = closed, 1 = open, 2 = half-open, as numbered by resilience4j
+        Gauge.builder("fxtrackr.fixer.circuit.state", circuitBreaker, cb -> cb.getState().getOrder())
+                .description("State of the Fixer API circuit breaker")
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String connection) {
+        return Counter.builder("fxtrackr.fixer.connections")
+                .description("Fixer API requests by whether they opened a new connection or reused a pooled one")
+                .tag("connection", connection)
+                .register(meterRegistry);
     }
 }
@@ -1,9 +1,14 @@
 package com.minelsaygisever.fxtrackr.config;
 
+import com.minelsaygisever.fxtrackr.service.ExchangeRateCacheService;
+import com.minelsaygisever.fxtrackr.service.RateUpdateListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericToStringSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -31,4 +36,19 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * Subscribes the {@link RateUpdateListener} to rate update announcements from other instances.
+     * The container re-subscribes on its own after a connection loss.
+     */
+    @Bean
+    @ConditionalOnProperty(value = "caching.pubsub.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer rateUpdateListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                     RateUpdateListener rateUpdateListener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(rateUpdateListener, new ChannelTopic(ExchangeRateCacheService.RATES_CHANNEL));
+        container.setRecoveryInterval(5_000);
+        return container;
+    }
 }
@@ -2,18 +2,30 @@ package com.minelsaygisever.fxtrackr.controller;
 
 import com.minelsaygisever.fxtrackr.annotation.*;
 import com.minelsaygisever.fxtrackr.dto.*;
+import com.minelsaygisever.fxtrackr.service.BulkConversionJobService;
 import com.minelsaygisever.fxtrackr.service.CurrencyConversionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.PastOrPresent;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Instant;
 import java.util.List;
 
 
@@ -24,6 +36,7 @@ import java.util.List;
 @RequestMapping("/api")
 public class CurrencyConversionController {
     private final CurrencyConversionService currencyConversionService;
+    private final BulkConversionJobService bulkConversionJobService;
 
     @ExchangeRateApi
     @GetMapping("/exchange-rate")
@@ -35,6 +48,29 @@ public class CurrencyConversionController {
         return ResponseEntity.ok(currencyConversionService.getExchangeRate(from, to));
     }
 
+    @HistoricalExchangeRateApi
+    @GetMapping("/exchange-rate/at")
+    public ResponseEntity<HistoricalRateResponse> getHistoricalExchangeRate(
+            @RequestParam @CurrencyCodeParam String from,
+            @RequestParam @CurrencyCodeParam String to,
+            @RequestParam @PastOrPresent @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant timestamp
+    ) {
+        log.info("Received /exchange-rate/at request: from='{}' to='{}' timestamp='{}'", from, to, timestamp);
+        return ResponseEntity.ok(currencyConversionService.getHistoricalExchangeRate(from, to, timestamp));
+    }
+
+    @HistoricalConversionApi
+    @GetMapping("/convert/at")
+    public ResponseEntity<HistoricalRateResponse> convertAt(
+            @RequestParam BigDecimal amount,
+            @RequestParam @CurrencyCodeParam String from,
+            @RequestParam @CurrencyCodeParam String to,
+            @RequestParam @PastOrPresent @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant timestamp
+    ) {
+        log.info("Received /convert/at request: from='{}', to='{}', amount='{}', timestamp='{}'", from, to, amount, timestamp);
+        return ResponseEntity.ok(currencyConversionService.convertAt(amount, from, to, timestamp));
+    }
+
     @CurrencyConversionApi
     @PostMapping("/convert")
     public ResponseEntity<CurrencyConversionResponse> convertCurrency(
@@ -62,6 +98,23 @@ public class CurrencyConversionController {
         return ResponseEntity.ok(page);
     }
 
+    @SearchHistoryCursorApi
+    @PostMapping("/conversions/search/cursor")
+    public ResponseEntity<ConversionHistorySlice> searchHistoryByCursor(
+            @Valid @RequestBody ConversionHistoryRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(1000) int size
+    ) {
+        log.info("Received /conversions/search/cursor: txId={}, date={}, size={}",
+                request.getTransactionId(), request.getDate(), size);
+        return ResponseEntity.ok(currencyConversionService.getConversionHistorySlice(
+                request.getTransactionId(),
+                request.getDate(),
+                cursor,
+                size
+        ));
+    }
+
     @BulkConvertApi
     @PostMapping(
             value    = "/convert/bulk",
@@ -74,4 +127,57 @@ public class CurrencyConversionController {
         List<BulkConversionResult> results = currencyConversionService.bulkConvert(file);
         return ResponseEntity.ok(results);
     }
+
+    @BulkConvertStreamApi
+    @PostMapping(
+            value    = "/convert/bulk/stream",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> bulkConvertStream(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(defaultValue = "NDJSON") BulkResultFormat format
+    ) {
+        log.info("Received streaming bulk CSV conversion: {} (format {})", file.getOriginalFilename(), format);
+        StreamingResponseBody body = currencyConversionService.bulkConvertStreaming(file, format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .body(body);
+    }
+
+    @SubmitBulkJobApi
+    @PostMapping(
+            value    = "/convert/bulk/jobs",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE
+    )
+    public ResponseEntity<BulkConversionJobResponse> submitBulkJob(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(defaultValue = "NDJSON") BulkResultFormat format
+    ) {
+        log.info("Received bulk conversion job: {} (format {})", file.getOriginalFilename(), format);
+        BulkConversionJobResponse job = bulkConversionJobService.submit(file, format);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/convert/bulk/jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    @BulkJobStatusApi
+    @GetMapping("/convert/bulk/jobs/{jobId}")
+    public ResponseEntity<BulkConversionJobResponse> getBulkJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(bulkConversionJobService.getJob(jobId));
+    }
+
+    @BulkJobResultsApi
+    @GetMapping("/convert/bulk/jobs/{jobId}/results")
+    public ResponseEntity<Resource> getBulkJobResults(@PathVariable String jobId) {
+        log.info("Received bulk job results download: {}", jobId);
+        BulkResultFormat format = bulkConversionJobService.getJob(jobId).getFormat();
+        Resource results = bulkConversionJobService.getResults(jobId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(jobId + "." + format.name().toLowerCase())
+                        .build()
+                        .toString())
+                .body(results);
+    }
 }
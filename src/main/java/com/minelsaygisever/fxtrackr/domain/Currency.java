@@ -40,4 +40,15 @@ public class Currency {
      */
     @Column(name = "IS_ACTIVE", nullable = false)
     private boolean isActive;
+
+    /**
+     * Whether the currency was deactivated by the startup sync because Fixer stopped listing it, rather than
+     * by hand. Only such currencies are reactivated when Fixer lists them again.
+     */
+    @Column(name = "DEACTIVATED_BY_SYNC", nullable = false)
+    private boolean deactivatedBySync;
+
+    public Currency(String code, String name, boolean isActive) {
+        this(code, name, isActive, false);
+    }
 }
@@ -0,0 +1,92 @@
+package com.minelsaygisever.fxtrackr.domain;
+
+/**
+ * Helpers for the compact integer form of ISO 4217 currency codes.
+ * A three-letter upper-case code is packed in base 26 into the range [0, {@link #CODE_SPACE}),
+ * which lets lookup tables be plain arrays instead of hash maps keyed by strings.
+ */
+public final class CurrencyCodes {
+
+    /**
+     * Number of distinct three-letter codes (26³).
+     */
+    public static final int CODE_SPACE = 26 * 26 * 26;
+
+    /**
+     * Returned by {@link #pack(String)} for anything that is not three upper-case letters.
+     */
+    public static final int INVALID = -1;
+
+    private CurrencyCodes() {
+    }
+
+    /**
+     * Packs a three-letter upper-case code (e.g. "USD") into an int.
+     * @return the packed code, or {@link #INVALID} if the input is not exactly three letters A–Z.
+     */
+    public static int pack(String code) {
+        if (code == null || code.length() != 3) {
+            return INVALID;
+        }
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = code.charAt(i) - 'A';
+            if (letter < 0 || letter >= 26) {
+                return INVALID;
+            }
+            packed = packed * 26 + letter;
+        }
+        return packed;
+    }
+
+    /**
+     * Packs a code the way a user may have typed it: surrounding whitespace is ignored
+     * and lower-case letters are accepted. Does not allocate.
+     * @return the packed code, or {@link #INVALID} if the trimmed input is not exactly three letters.
+     */
+    public static int packNormalized(String code) {
+        if (code == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = code.length();
+        while (start < end && code.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && code.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end - start != 3) {
+            return INVALID;
+        }
+        int packed = 0;
+        for (int i = start; i < end; i++) {
+            char c = code.charAt(i);
+            int letter;
+            if (c >= 'A' && c <= 'Z') {
+                letter = c - 'A';
+            } else if (c >= 'a' && c <= 'z') {
+                letter = c - 'a';
+            } else {
+                return INVALID;
+            }
+            packed = packed * 26 + letter;
+        }
+        return packed;
+    }
+
+    /**
+     * Reverses {@link #pack(String)}.
+     */
+    public static String unpack(int packed) {
+        if (packed < 0 || packed >= CODE_SPACE) {
+            throw new IllegalArgumentException("Not a packed currency code: " + packed);
+        }
+        char[] letters = new char[3];
+        for (int i = 2; i >= 0; i--) {
+            letters[i] = (char) ('A' + packed % 26);
+            packed /= 26;
+        }
+        return new String(letters);
+    }
+}
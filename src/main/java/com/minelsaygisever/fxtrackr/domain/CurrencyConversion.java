@@ -17,13 +17,13 @@ import java.util.UUID;
 public class CurrencyConversion {
 
     @Id
-    @Column(name = "ID", nullable = false, updatable = false)
+    @Column(name = "ID", length = 36, nullable = false, updatable = false)
     private String id;
 
-    @Column(name = "SOURCE_CURRENCY", nullable = false)
+    @Column(name = "SOURCE_CURRENCY", length = 3, nullable = false)
     private String sourceCurrency;
 
-    @Column(name = "TARGET_CURRENCY", nullable = false)
+    @Column(name = "TARGET_CURRENCY", length = 3, nullable = false)
     private String targetCurrency;
 
     @Column(name = "SOURCE_AMOUNT", precision = 19, scale = 6, nullable = false)
@@ -38,9 +38,33 @@ public class CurrencyConversion {
     @Column(name = "TIMESTAMP", nullable = false)
     private Instant timestamp;
 
+    /**
+     * UTC day of {@link #timestamp}, as days since 1970-01-01. This is the partition key: date-filtered
+     * history queries and the retention purge select by it, so they only touch the days involved.
+     */
+    @Column(name = "CONVERSION_DAY", nullable = false, updatable = false)
+    private Integer conversionDay;
+
+    /**
+     * Returns the partition day of an instant, see {@link #conversionDay}.
+     */
+    public static int dayOf(Instant instant) {
+        return (int) Math.floorDiv(instant.getEpochSecond(), 86_400L);
+    }
+
+    /**
+     * Assigns an ID, timestamp and partition day unless the caller already did (bulk uploads pre-generate them).
+     */
     @PrePersist
     public void prePersist() {
-        this.id = UUID.randomUUID().toString();
-        this.timestamp = Instant.now();
+        if (this.id == null) {
+            this.id = UUID.randomUUID().toString();
+        }
+        if (this.timestamp == null) {
+            this.timestamp = Instant.now();
+        }
+        if (this.conversionDay == null) {
+            this.conversionDay = dayOf(this.timestamp);
+        }
     }
 }
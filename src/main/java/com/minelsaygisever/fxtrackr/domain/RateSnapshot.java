@@ -0,0 +1,179 @@
+package com.minelsaygisever.fxtrackr.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable, versioned set of exchange rates against the base currency.
+ * A snapshot is built once whenever the rates change and is then shared read-only
+ * by every request, so reading a rate needs neither network I/O nor parsing.
+ * <p>
+ * On construction every currency gets a small dense id and the full N×N matrix of cross rates
+ * (scale 6, HALF_UP, identity on the diagonal) is precomputed, so resolving a pair is two array
+ * reads for the ids and one for the rate.
+ */
+public final class RateSnapshot {
+
+    /**
+     * Scale of the precomputed cross rates.
+     */
+    public static final int CROSS_RATE_SCALE = 6;
+
+    private static final short NO_ID = -1;
+    // Same scale as the divided entries, as same-currency rows got when they were divided too
+    private static final BigDecimal IDENTITY_RATE = BigDecimal.ONE.setScale(CROSS_RATE_SCALE);
+
+    private final long version;
+    private final Instant fetchedAt;
+    private final long loadedAtMillis;
+    private final Map<String, BigDecimal> rates;
+
+    private final String[] codes;
+    private final short[] idByPackedCode;
+    private final BigDecimal[] crossRates;
+
+    public RateSnapshot(long version, Instant fetchedAt, long loadedAtMillis, Map<String, BigDecimal> rates) {
+        this.version = version;
+        this.fetchedAt = fetchedAt;
+        this.loadedAtMillis = loadedAtMillis;
+        this.rates = Map.copyOf(rates);
+
+        this.idByPackedCode = new short[CurrencyCodes.CODE_SPACE];
+        Arrays.fill(idByPackedCode, NO_ID);
+        this.codes = this.rates.keySet().stream()
+                .filter(code -> CurrencyCodes.pack(code) != CurrencyCodes.INVALID)
+                .sorted()
+                .toArray(String[]::new);
+        if (codes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many currencies in one snapshot: " + codes.length);
+        }
+        for (int id = 0; id < codes.length; id++) {
+            idByPackedCode[CurrencyCodes.pack(codes[id])] = (short) id;
+        }
+        this.crossRates = buildCrossRates(codes, this.rates);
+    }
+
+    private RateSnapshot(RateSnapshot source, long loadedAtMillis) {
+        this.version = source.version;
+        this.fetchedAt = source.fetchedAt;
+        this.loadedAtMillis = loadedAtMillis;
+        this.rates = source.rates;
+        this.codes = source.codes;
+        this.idByPackedCode = source.idByPackedCode;
+        this.crossRates = source.crossRates;
+    }
+
+    /**
+     * Entry [from * N + to] holds how many units of 'to' one unit of 'from' buys.
+     * Both directions of a pair are divided directly from the base rates rather than inverting
+     * one another, so every entry is rounded exactly once.
+     */
+    private static BigDecimal[] buildCrossRates(String[] codes, Map<String, BigDecimal> rates) {
+        int n = codes.length;
+        BigDecimal[] baseRates = new BigDecimal[n];
+        for (int id = 0; id < n; id++) {
+            baseRates[id] = rates.get(codes[id]);
+        }
+
+        BigDecimal[] matrix = new BigDecimal[n * n];
+        for (int from = 0; from < n; from++) {
+            BigDecimal fromRate = baseRates[from];
+            if (fromRate == null || fromRate.signum() == 0) {
+                continue;
+            }
+            int row = from * n;
+            for (int to = 0; to < n; to++) {
+                BigDecimal toRate = baseRates[to];
+                if (from == to) {
+                    matrix[row + to] = IDENTITY_RATE;
+                } else if (toRate != null) {
+                    matrix[row + to] = toRate.divide(fromRate, CROSS_RATE_SCALE, RoundingMode.HALF_UP);
+                }
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Monotonically increasing version; only changes when the rates themselves change.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The instant this node first built a snapshot with these rates.
+     */
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * Wall-clock time (epoch millis) at which these rates were last loaded or confirmed.
+     */
+    public long getLoadedAtMillis() {
+        return loadedAtMillis;
+    }
+
+    /**
+     * Returns the rate of the given currency against the base currency, or null if unknown.
+     */
+    public BigDecimal getRate(String code) {
+        return rates.get(code);
+    }
+
+    /**
+     * Unmodifiable view of all rates in this snapshot.
+     */
+    public Map<String, BigDecimal> getRates() {
+        return rates;
+    }
+
+    /**
+     * Number of currencies in the cross-rate matrix.
+     */
+    public int getCurrencyCount() {
+        return codes.length;
+    }
+
+    /**
+     * Returns the dense id of a currency in this snapshot, or -1 if it has no rate.
+     */
+    public int idOf(String code) {
+        int packed = CurrencyCodes.pack(code);
+        return packed == CurrencyCodes.INVALID ? NO_ID : idByPackedCode[packed];
+    }
+
+    /**
+     * Returns the precomputed cross rate for two dense ids obtained from {@link #idOf(String)},
+     * or null if either id is unknown.
+     */
+    public BigDecimal getCrossRate(int fromId, int toId) {
+        if (fromId < 0 || toId < 0) {
+            return null;
+        }
+        return crossRates[fromId * codes.length + toId];
+    }
+
+    /**
+     * Returns how many units of {@code to} one unit of {@code from} buys, or null if either rate is unknown.
+     */
+    public BigDecimal getCrossRate(String from, String to) {
+        return getCrossRate(idOf(from), idOf(to));
+    }
+
+    public boolean isExpired(long nowMillis, long maxAgeMillis) {
+        return nowMillis - loadedAtMillis >= maxAgeMillis;
+    }
+
+    /**
+     * Returns a copy of this snapshot with the same version and rates but a new load time.
+     * Used when a re-read from the distribution layer confirms that nothing has changed.
+     */
+    public RateSnapshot reloadedAt(long nowMillis) {
+        return new RateSnapshot(this, nowMillis);
+    }
+}
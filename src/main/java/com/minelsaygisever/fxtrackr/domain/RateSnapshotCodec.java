@@ -0,0 +1,138 @@
+package com.minelsaygisever.fxtrackr.domain;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary encoding of a full set of rates, stored in Redis as a single value.
+ * <pre>
+ *   magic 'FX' (2) | format version (1) | fetchedAt epoch millis (8) | entry count (2)
+ *   entries, ordered by packed code: packed currency code (2) | scale (1) | unscaled value (8)
+ *   CRC32 of all preceding bytes (4)
+ * </pre>
+ * A rate decodes to a BigDecimal with exactly the scale it was encoded with, so decoded rates
+ * compare equal to the originals. About 11 bytes per currency, with no text parsing on read.
+ */
+public final class RateSnapshotCodec {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final short MAGIC = 0x4658;
+    private static final int HEADER_BYTES = 2 + 1 + 8 + 2;
+    private static final int ENTRY_BYTES = 2 + 1 + 8;
+    private static final int CHECKSUM_BYTES = 4;
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private RateSnapshotCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if a code is not three letters, or a rate does not fit
+     *                                  a long unscaled value with a one-byte scale.
+     */
+    public static byte[] encode(Map<String, BigDecimal> rates, Instant fetchedAt) {
+        if (rates.size() > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Too many rates to encode: " + rates.size());
+        }
+        BigDecimal[] byPackedCode = new BigDecimal[CurrencyCodes.CODE_SPACE];
+        for (Map.Entry<String, BigDecimal> entry : rates.entrySet()) {
+            int packed = CurrencyCodes.pack(entry.getKey());
+            if (packed == CurrencyCodes.INVALID) {
+                throw new IllegalArgumentException("Not a currency code: " + entry.getKey());
+            }
+            byPackedCode[packed] = entry.getValue();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + rates.size() * ENTRY_BYTES + CHECKSUM_BYTES);
+        buffer.putShort(MAGIC)
+                .put((byte) FORMAT_VERSION)
+                .putLong(fetchedAt.toEpochMilli())
+                .putShort((short) rates.size());
+        for (int packed = 0; packed < byPackedCode.length; packed++) {
+            BigDecimal rate = byPackedCode[packed];
+            if (rate == null) {
+                continue;
+            }
+            BigInteger unscaled = rate.unscaledValue();
+            if (unscaled.bitLength() > 63 || rate.scale() < Byte.MIN_VALUE || rate.scale() > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Rate of " + CurrencyCodes.unpack(packed)
+                        + " cannot be encoded: " + rate.toPlainString());
+            }
+            buffer.putShort((short) packed)
+                    .put((byte) rate.scale())
+                    .putLong(unscaled.longValue());
+        }
+        buffer.putInt((int) checksum(buffer.array(), buffer.position()));
+        return buffer.array();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the data is truncated, corrupted or of an unknown format version.
+     */
+    public static Decoded decode(byte[] data) {
+        if (data.length < HEADER_BYTES + CHECKSUM_BYTES) {
+            throw new IllegalArgumentException("Truncated rate snapshot: " + data.length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int checksumOffset = data.length - CHECKSUM_BYTES;
+        if ((int) checksum(data, checksumOffset) != buffer.getInt(checksumOffset)) {
+            throw new IllegalArgumentException("Rate snapshot checksum mismatch");
+        }
+        if (buffer.getShort() != MAGIC) {
+            throw new IllegalArgumentException("Not a rate snapshot");
+        }
+        int version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported rate snapshot format version " + version);
+        }
+        Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+        int count = Short.toUnsignedInt(buffer.getShort());
+        if (data.length != HEADER_BYTES + count * ENTRY_BYTES + CHECKSUM_BYTES) {
+            throw new IllegalArgumentException("Rate snapshot length does not match its " + count + " entries");
+        }
+
+        Map<String, BigDecimal> rates = new HashMap<>((int) (count / 0.75f) + 1);
+        for (int i = 0; i < count; i++) {
+            int packed = Short.toUnsignedInt(buffer.getShort());
+            int scale = buffer.get();
+            long unscaled = buffer.getLong();
+            if (packed >= CurrencyCodes.CODE_SPACE) {
+                throw new IllegalArgumentException("Invalid currency id in rate snapshot: " + packed);
+            }
+            rates.put(CurrencyCodes.unpack(packed), BigDecimal.valueOf(unscaled, scale));
+        }
+        return new Decoded(fetchedAt, rates);
+    }
+
+    private static long checksum(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return crc.getValue();
+    }
+
+    /**
+     * Rates read back from an encoded snapshot, with the time they were fetched from the source.
+     */
+    public static final class Decoded {
+        private final Instant fetchedAt;
+        private final Map<String, BigDecimal> rates;
+
+        private Decoded(Instant fetchedAt, Map<String, BigDecimal> rates) {
+            this.fetchedAt = fetchedAt;
+            this.rates = rates;
+        }
+
+        public Instant getFetchedAt() {
+            return fetchedAt;
+        }
+
+        public Map<String, BigDecimal> getRates() {
+            return rates;
+        }
+    }
+}
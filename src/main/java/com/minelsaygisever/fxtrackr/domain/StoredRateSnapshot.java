@@ -0,0 +1,34 @@
+package com.minelsaygisever.fxtrackr.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * One set of rates fetched from the live API, kept for point-in-time lookups.
+ * The rates are stored packed in the {@link RateSnapshotCodec} format (about 2 KB for a full Fixer response).
+ */
+@Entity
+@Table(name = "RATE_SNAPSHOT")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredRateSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID", nullable = false, updatable = false)
+    private Long id;
+
+    @Column(name = "FETCHED_AT", nullable = false, updatable = false)
+    private Instant fetchedAt;
+
+    @Column(name = "CURRENCY_COUNT", nullable = false, updatable = false)
+    private int currencyCount;
+
+    @Column(name = "RATES", nullable = false, updatable = false, length = 65_535)
+    private byte[] rates;
+}
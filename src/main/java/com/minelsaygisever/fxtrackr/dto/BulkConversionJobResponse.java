@@ -0,0 +1,49 @@
+package com.minelsaygisever.fxtrackr.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@Jacksonized
+public class BulkConversionJobResponse {
+    @Schema(description = "Job identifier", example = "0b7e6c1e-3f43-4c4e-9a55-2f7b8b1c9d10")
+    private String jobId;
+
+    @Schema(description = "Job status", example = "RUNNING")
+    private BulkJobStatus status;
+
+    @Schema(description = "Name of the uploaded file", example = "reconciliation.csv")
+    private String fileName;
+
+    @Schema(description = "Format of the downloadable results", example = "NDJSON")
+    private BulkResultFormat format;
+
+    @Schema(description = "Rows processed so far", example = "250000")
+    private long rowsProcessed;
+
+    @Schema(description = "Rows converted and saved successfully", example = "249990")
+    private long successCount;
+
+    @Schema(description = "Rows that ended with an error code", example = "10")
+    private long errorCount;
+
+    @Schema(description = "Average processing throughput since the job started", example = "41250.5")
+    private double rowsPerSecond;
+
+    @Schema(description = "When the job was submitted", example = "2025-05-02T01:00:00Z")
+    private Instant submittedAt;
+
+    @Schema(description = "When a worker started the job", example = "2025-05-02T01:00:01Z")
+    private Instant startedAt;
+
+    @Schema(description = "When the job completed or failed", example = "2025-05-02T01:00:07Z")
+    private Instant finishedAt;
+
+    @Schema(description = "Failure reason if the job failed")
+    private String message;
+}
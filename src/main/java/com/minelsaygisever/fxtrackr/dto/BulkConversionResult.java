@@ -1,6 +1,7 @@
 package com.minelsaygisever.fxtrackr.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,6 +9,7 @@ import java.math.BigDecimal;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class BulkConversionResult {
     @Schema(description = "Line number in the uploaded CSV", example = "1")
     private int line;
@@ -0,0 +1,11 @@
+package com.minelsaygisever.fxtrackr.dto;
+
+/**
+ * Lifecycle of an asynchronous bulk conversion job.
+ */
+public enum BulkJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,25 @@
+package com.minelsaygisever.fxtrackr.dto;
+
+/**
+ * Output formats of the streaming bulk conversion endpoint.
+ */
+public enum BulkResultFormat {
+    /**
+     * One JSON object per line.
+     */
+    NDJSON("application/x-ndjson"),
+    /**
+     * CSV with the header line,transactionId,convertedAmount,code,message.
+     */
+    CSV("text/csv");
+
+    private final String mediaType;
+
+    BulkResultFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+}
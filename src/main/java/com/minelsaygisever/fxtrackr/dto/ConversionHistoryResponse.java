@@ -1,14 +1,20 @@
 package com.minelsaygisever.fxtrackr.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 
+/**
+ * Also used as a JPQL constructor projection, so the constructor's parameter order
+ * must match the SELECT NEW expressions in CurrencyConversionRepository.
+ */
 @Data
 @Builder
+@AllArgsConstructor
 public class ConversionHistoryResponse {
     @Schema(description = "Unique transaction identifier", example = "3fa85f64-5717-4562-b3fc-2c963f66afa6")
     private String transactionId;
@@ -0,0 +1,28 @@
+package com.minelsaygisever.fxtrackr.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@Schema(
+        name="ConversionHistorySlice",
+        description="One page of past conversions in cursor mode, without a total count"
+)
+public class ConversionHistorySlice {
+    @Schema(description = "Conversions on this page, oldest first")
+    private List<ConversionHistoryResponse> content;
+
+    @Schema(description = "Number of conversions on this page", example = "20")
+    private int size;
+
+    @Schema(description = "Whether more conversions follow this page", example = "true")
+    private boolean hasNext;
+
+    @Schema(description = "Opaque cursor to pass back for the next page; absent on the last page",
+            example = "MjAyNS0wNC0zMFQxNTowNDowNVp8M2ZhODVmNjQtNTcxNy00NTYyLWIzZmMtMmM5NjNmNjZhZmE2")
+    private String nextCursor;
+}
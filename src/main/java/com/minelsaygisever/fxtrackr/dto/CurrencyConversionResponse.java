@@ -1,6 +1,7 @@
 package com.minelsaygisever.fxtrackr.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import lombok.Data;
@@ -15,4 +16,9 @@ public class CurrencyConversionResponse {
 
     @Schema(description = "Converted amount in the target currency", example = "92.34")
     private BigDecimal convertedAmount;
+
+    @Schema(description = "Only present when the rate came from an expired snapshot served while the rates are "
+            + "being reloaded: the age of that snapshot in seconds", example = "420")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long staleRateAgeSeconds;
 }
@@ -1,6 +1,7 @@
 package com.minelsaygisever.fxtrackr.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import lombok.Data;
@@ -12,4 +13,9 @@ import java.math.BigDecimal;
 public class ExchangeRateResponse {
     @Schema(description = "Current exchange rate between source and target currency", example = "0.918273")
     private BigDecimal exchangeRate;
+
+    @Schema(description = "Only present when the rate came from an expired snapshot served while the rates are "
+            + "being reloaded: the age of that snapshot in seconds", example = "420")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long staleRateAgeSeconds;
 }
@@ -0,0 +1,29 @@
+package com.minelsaygisever.fxtrackr.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HistoricalRateResponse {
+    @Schema(description = "Exchange rate in effect at the requested time", example = "0.918273")
+    private BigDecimal exchangeRate;
+
+    @Schema(description = "Amount to convert, for conversions", example = "100.000000")
+    private BigDecimal amount;
+
+    @Schema(description = "Converted amount, for conversions", example = "91.827300")
+    private BigDecimal convertedAmount;
+
+    @Schema(description = "The requested point in time", example = "2025-05-01T12:00:00Z")
+    private Instant requestedAt;
+
+    @Schema(description = "When the rates in effect at that time were fetched", example = "2025-05-01T11:52:10Z")
+    private Instant ratesFetchedAt;
+}
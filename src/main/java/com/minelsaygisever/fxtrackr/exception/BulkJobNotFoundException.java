@@ -0,0 +1,9 @@
+package com.minelsaygisever.fxtrackr.exception;
+
+public class BulkJobNotFoundException extends ApplicationException {
+    private static final String ERROR_CODE = "JOB_NOT_FOUND";
+
+    public BulkJobNotFoundException(String jobId) {
+        super(ERROR_CODE, "Bulk conversion job '" + jobId + "' does not exist or has expired.");
+    }
+}
@@ -0,0 +1,9 @@
+package com.minelsaygisever.fxtrackr.exception;
+
+public class BulkJobNotReadyException extends ApplicationException {
+    private static final String ERROR_CODE = "JOB_NOT_COMPLETED";
+
+    public BulkJobNotReadyException(String message) {
+        super(ERROR_CODE, message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.minelsaygisever.fxtrackr.exception;
+
+public class BulkJobRejectedException extends ApplicationException {
+    private static final String ERROR_CODE = "JOB_QUEUE_FULL";
+
+    public BulkJobRejectedException(String message) {
+        super(ERROR_CODE, message);
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
@@ -97,6 +99,33 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(err);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        String msg = "Invalid value '" + ex.getValue() + "' for parameter " + ex.getName();
+        ErrorResponse err = new ErrorResponse("INVALID_PARAMETER_FORMAT", msg, LocalDateTime.now());
+        return ResponseEntity.badRequest().body(err);
+    }
+
+    @ExceptionHandler(HistoricalRateNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleHistoricalRateNotFound(HistoricalRateNotFoundException ex) {
+        ErrorResponse err = new ErrorResponse(
+                ex.getErrorCode(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(err);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+        ErrorResponse err = new ErrorResponse(
+                ex.getErrorCode(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.badRequest().body(err);
+    }
+
     @ExceptionHandler(InvalidAmountException.class)
     public ResponseEntity<ErrorResponse> handleInvalidAmount(InvalidAmountException ex) {
         ErrorResponse err = new ErrorResponse(
@@ -167,4 +196,63 @@ public class GlobalExceptionHandler {
         );
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
     }
+
+    @ExceptionHandler(BulkJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleBulkJobNotFound(BulkJobNotFoundException ex) {
+        ErrorResponse err = new ErrorResponse(
+                ex.getErrorCode(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(err);
+    }
+
+    @ExceptionHandler(BulkJobNotReadyException.class)
+    public ResponseEntity<ErrorResponse> handleBulkJobNotReady(BulkJobNotReadyException ex) {
+        ErrorResponse err = new ErrorResponse(
+                ex.getErrorCode(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(err);
+    }
+
+    /**
+     * 503 Service Unavailable when the bulk job queue is full.
+     */
+    @ExceptionHandler(BulkJobRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleBulkJobRejected(BulkJobRejectedException ex) {
+        ErrorResponse err = new ErrorResponse(
+                ex.getErrorCode(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(err);
+    }
+
+    /**
+     * 413 Payload Too Large when an upload exceeds the limit of its endpoint.
+     */
+    @ExceptionHandler(UploadTooLargeException.class)
+    public ResponseEntity<ErrorResponse> handleUploadTooLarge(UploadTooLargeException ex) {
+        ErrorResponse err = new ErrorResponse(
+                ex.getErrorCode(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(err);
+    }
+
+    /**
+     * 413 Payload Too Large when an upload exceeds the container-wide multipart limit.
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ErrorResponse> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException ex) {
+        ErrorResponse err = new ErrorResponse(
+                "FILE_TOO_LARGE",
+                "The uploaded file exceeds the maximum upload size.",
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(err);
+    }
 }
@@ -0,0 +1,9 @@
+package com.minelsaygisever.fxtrackr.exception;
+
+public class HistoricalRateNotFoundException extends ApplicationException {
+    private static final String ERROR_CODE = "RATE_SNAPSHOT_NOT_FOUND";
+
+    public HistoricalRateNotFoundException(String message) {
+        super(ERROR_CODE, message);
+    }
+}
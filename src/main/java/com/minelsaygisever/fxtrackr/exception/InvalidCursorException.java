@@ -0,0 +1,9 @@
+package com.minelsaygisever.fxtrackr.exception;
+
+public class InvalidCursorException extends ApplicationException {
+    private static final String ERROR_CODE = "INVALID_CURSOR";
+
+    public InvalidCursorException(String message) {
+        super(ERROR_CODE, message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.minelsaygisever.fxtrackr.exception;
+
+public class UploadTooLargeException extends ApplicationException {
+    private static final String ERROR_CODE = "FILE_TOO_LARGE";
+
+    public UploadTooLargeException(String message) {
+        super(ERROR_CODE, message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.minelsaygisever.fxtrackr.repository;
+
+import com.minelsaygisever.fxtrackr.domain.Currency;
+
+import java.util.List;
+
+/**
+ * Write path for inserting many new currencies at once, used by the currency bootstrap.
+ */
+public interface CurrencyBatchRepository {
+
+    /**
+     * Inserts the given new currencies as batched statements. Must be called inside a transaction.
+     */
+    void insertAll(List<Currency> currencies);
+}
@@ -0,0 +1,28 @@
+package com.minelsaygisever.fxtrackr.repository;
+
+import com.minelsaygisever.fxtrackr.domain.Currency;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class CurrencyBatchRepositoryImpl implements CurrencyBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Uses {@link EntityManager#persist} rather than {@code save()}: the code is an assigned ID, so
+     * {@code save()} would issue a SELECT before each INSERT.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void insertAll(List<Currency> currencies) {
+        for (Currency currency : currencies) {
+            entityManager.persist(currency);
+        }
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,18 @@
+package com.minelsaygisever.fxtrackr.repository;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+
+import java.util.List;
+
+/**
+ * Write path for large numbers of new conversions, used by bulk uploads.
+ */
+public interface CurrencyConversionBatchRepository {
+
+    /**
+     * Inserts the given new conversions using JDBC batching, flushing and clearing the
+     * persistence context every {@code bulk.persistence.batch-size} entities.
+     * IDs must already be assigned. Must be called inside a transaction.
+     */
+    void insertAll(List<CurrencyConversion> conversions);
+}
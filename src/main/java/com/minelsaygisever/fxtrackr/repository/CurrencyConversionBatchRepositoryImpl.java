@@ -0,0 +1,37 @@
+package com.minelsaygisever.fxtrackr.repository;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class CurrencyConversionBatchRepositoryImpl implements CurrencyConversionBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${bulk.persistence.batch-size}")
+    private int batchSize;
+
+    /**
+     * Uses {@link EntityManager#persist} rather than {@code save()}: with assigned IDs {@code save()}
+     * would treat every entity as detached and issue a SELECT before each INSERT.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void insertAll(List<CurrencyConversion> conversions) {
+        for (int i = 0; i < conversions.size(); i++) {
+            entityManager.persist(conversions.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -1,12 +1,73 @@
 package com.minelsaygisever.fxtrackr.repository;
 
 import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.dto.ConversionHistoryResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
-public interface CurrencyConversionRepository extends JpaRepository<CurrencyConversion, String> {
-    Page<CurrencyConversion> findByTimestampBetween(Instant start, Instant end, Pageable pageable);
+/**
+ * History reads select straight into {@link ConversionHistoryResponse}, so no managed entities
+ * are hydrated or tracked by the persistence context for read-only pages.
+ */
+public interface CurrencyConversionRepository extends JpaRepository<CurrencyConversion, String>, CurrencyConversionBatchRepository {
+
+    String HISTORY_PROJECTION = "SELECT new com.minelsaygisever.fxtrackr.dto.ConversionHistoryResponse("
+            + "c.id, c.sourceCurrency, c.targetCurrency, c.sourceAmount, c.convertedAmount, c.exchangeRate, c.timestamp)"
+            + " FROM CurrencyConversion c";
+
+    @Query(HISTORY_PROJECTION + " WHERE c.id = :id")
+    Optional<ConversionHistoryResponse> findHistoryById(@Param("id") String id);
+
+    @Query(value = HISTORY_PROJECTION + " WHERE c.conversionDay = :day",
+            countQuery = "SELECT count(c) FROM CurrencyConversion c WHERE c.conversionDay = :day")
+    Page<ConversionHistoryResponse> findHistoryByDay(@Param("day") int day, Pageable pageable);
+
+    /**
+     * First page of a keyset scan over one day, ordered by (timestamp, id).
+     */
+    @Query(HISTORY_PROJECTION
+            + " WHERE c.conversionDay = :day"
+            + " ORDER BY c.timestamp ASC, c.id ASC")
+    List<ConversionHistoryResponse> findFirstKeysetPage(@Param("day") int day, Pageable limit);
+
+    /**
+     * Next page of a keyset scan over one day, starting strictly after (afterTimestamp, afterId).
+     * Seeks on the (CONVERSION_DAY, TIMESTAMP, ID) index, so the cost does not grow with the page number.
+     */
+    @Query(HISTORY_PROJECTION
+            + " WHERE c.conversionDay = :day"
+            + " AND (c.timestamp > :afterTimestamp OR (c.timestamp = :afterTimestamp AND c.id > :afterId))"
+            + " ORDER BY c.timestamp ASC, c.id ASC")
+    List<ConversionHistoryResponse> findKeysetPageAfter(@Param("day") int day,
+                                                        @Param("afterTimestamp") Instant afterTimestamp,
+                                                        @Param("afterId") String afterId,
+                                                        Pageable limit);
+
+    /**
+     * Days before the given one that still hold conversions, oldest first.
+     */
+    @Query("SELECT DISTINCT c.conversionDay FROM CurrencyConversion c"
+            + " WHERE c.conversionDay < :beforeDay ORDER BY c.conversionDay")
+    List<Integer> findDaysBefore(@Param("beforeDay") int beforeDay);
+
+    /**
+     * Deletes a whole day with one statement that selects the rows through the day index.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CurrencyConversion c WHERE c.conversionDay = :day")
+    int deleteByDay(@Param("day") int day);
+
+    @Query("SELECT c.id FROM CurrencyConversion c WHERE c.id IN :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
 }
@@ -4,11 +4,11 @@ import com.minelsaygisever.fxtrackr.domain.Currency;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.List;
 
 @Repository
-public interface CurrencyRepository extends JpaRepository<Currency, String> {
+public interface CurrencyRepository extends JpaRepository<Currency, String>, CurrencyBatchRepository {
 
-    Optional<Currency> findByCodeAndIsActiveTrue(String code);
+    List<Currency> findAllByIsActiveTrue();
 
 }
@@ -0,0 +1,22 @@
+package com.minelsaygisever.fxtrackr.repository;
+
+import com.minelsaygisever.fxtrackr.domain.StoredRateSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface RateSnapshotRepository extends JpaRepository<StoredRateSnapshot, Long> {
+
+    /**
+     * The snapshot in effect at the given instant: the latest one fetched at or before it.
+     */
+    Optional<StoredRateSnapshot> findFirstByFetchedAtLessThanEqualOrderByFetchedAtDesc(Instant at);
+
+    /**
+     * The snapshot that superseded the one fetched at the given instant, if any.
+     */
+    Optional<StoredRateSnapshot> findFirstByFetchedAtGreaterThanOrderByFetchedAtAsc(Instant fetchedAt);
+}
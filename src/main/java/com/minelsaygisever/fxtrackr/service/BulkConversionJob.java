@@ -0,0 +1,174 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.dto.BulkConversionJobResponse;
+import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.dto.BulkJobStatus;
+import com.minelsaygisever.fxtrackr.dto.BulkResultFormat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory state of one asynchronous bulk conversion job.
+ * Written by the worker thread processing the job and read concurrently by status requests.
+ */
+class BulkConversionJob {
+
+    private final String id;
+    private final String fileName;
+    private final BulkResultFormat format;
+    private final Path inputFile;
+    private final Path resultFile;
+    private final Instant submittedAt;
+
+    private final AtomicLong rowsProcessed = new AtomicLong();
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicInteger openDownloads = new AtomicInteger();
+
+    private volatile BulkJobStatus status = BulkJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String failureMessage;
+
+    BulkConversionJob(String id, String fileName, BulkResultFormat format, Path inputFile, Path resultFile,
+                      Instant submittedAt) {
+        this.id = id;
+        this.fileName = fileName;
+        this.format = format;
+        this.inputFile = inputFile;
+        this.resultFile = resultFile;
+        this.submittedAt = submittedAt;
+    }
+
+    /**
+     * Rebuilds a job from its saved state.
+     */
+    static BulkConversionJob restore(BulkConversionJobResponse state, Path inputFile, Path resultFile) {
+        BulkConversionJob job = new BulkConversionJob(state.getJobId(), state.getFileName(), state.getFormat(),
+                inputFile, resultFile, state.getSubmittedAt());
+        job.rowsProcessed.set(state.getRowsProcessed());
+        job.successCount.set(state.getSuccessCount());
+        job.errorCount.set(state.getErrorCount());
+        job.startedAt = state.getStartedAt();
+        job.finishedAt = state.getFinishedAt();
+        job.failureMessage = state.getMessage();
+        job.status = state.getStatus();
+        return job;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = BulkJobStatus.RUNNING;
+    }
+
+    void markCompleted() {
+        finishedAt = Instant.now();
+        status = BulkJobStatus.COMPLETED;
+    }
+
+    void markFailed(String message) {
+        failureMessage = message;
+        finishedAt = Instant.now();
+        status = BulkJobStatus.FAILED;
+    }
+
+    /**
+     * Counts a committed row towards the job's progress.
+     */
+    void record(BulkConversionResult result) {
+        rowsProcessed.incrementAndGet();
+        if ("SUCCESS".equals(result.getCode())) {
+            successCount.incrementAndGet();
+        } else {
+            errorCount.incrementAndGet();
+        }
+    }
+
+    void downloadOpened() {
+        openDownloads.incrementAndGet();
+    }
+
+    void downloadClosed() {
+        openDownloads.decrementAndGet();
+    }
+
+    /**
+     * Whether a result download is still streaming; the result file must not be deleted until it ends.
+     */
+    boolean hasOpenDownloads() {
+        return openDownloads.get() > 0;
+    }
+
+    boolean isFinished() {
+        return status == BulkJobStatus.COMPLETED || status == BulkJobStatus.FAILED;
+    }
+
+    /**
+     * Average rows per second between the start of processing and its end (or now, while running).
+     */
+    double getRowsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long elapsedMillis = Math.max(Duration.between(start, end).toMillis(), 1);
+        return rowsProcessed.get() * 1000.0 / elapsedMillis;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    BulkResultFormat getFormat() {
+        return format;
+    }
+
+    Path getInputFile() {
+        return inputFile;
+    }
+
+    Path getResultFile() {
+        return resultFile;
+    }
+
+    Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    Instant getStartedAt() {
+        return startedAt;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    BulkJobStatus getStatus() {
+        return status;
+    }
+
+    String getFailureMessage() {
+        return failureMessage;
+    }
+
+    long getRowsProcessed() {
+        return rowsProcessed.get();
+    }
+
+    long getSuccessCount() {
+        return successCount.get();
+    }
+
+    long getErrorCount() {
+        return errorCount.get();
+    }
+}
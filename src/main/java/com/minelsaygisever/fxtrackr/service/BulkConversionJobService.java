@@ -0,0 +1,374 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minelsaygisever.fxtrackr.dto.BulkConversionJobResponse;
+import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.dto.BulkJobStatus;
+import com.minelsaygisever.fxtrackr.dto.BulkResultFormat;
+import com.minelsaygisever.fxtrackr.exception.BulkJobNotFoundException;
+import com.minelsaygisever.fxtrackr.exception.BulkJobNotReadyException;
+import com.minelsaygisever.fxtrackr.exception.BulkJobRejectedException;
+import com.minelsaygisever.fxtrackr.exception.BulkProcessingException;
+import com.minelsaygisever.fxtrackr.exception.UploadTooLargeException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs bulk CSV conversions in the background so that large uploads do not hold a request thread.
+ * The upload is spooled to {@code bulk.jobs.work-dir}, processed by a bounded worker pool with the same
+ * row logic as the synchronous endpoints, and its results are written to a file that can be downloaded
+ * once the job has completed. Finished jobs and their files are purged after {@code bulk.jobs.retention-minutes}.
+ * <p>
+ * Every job's state is saved next to its files when it is queued and when it finishes, so finished jobs survive
+ * a restart and can be served by any instance sharing the work dir. Jobs run only on the instance that accepted
+ * them; one that was still queued or running when that instance ({@code bulk.jobs.instance-id}) stopped is
+ * marked failed, and its files deleted, when it starts again. Without a shared work dir, job requests must be
+ * routed to the instance that accepted the job.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkConversionJobService {
+
+    private static final String STATE_SUFFIX = ".job.json";
+
+    private final BulkConversionProcessor bulkConversionProcessor;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, BulkConversionJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${bulk.jobs.workers}")
+    private int workers;
+
+    @Value("${bulk.jobs.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${bulk.jobs.work-dir}")
+    private String workDirectory;
+
+    @Value("${bulk.jobs.retention-minutes}")
+    private long retentionMinutes;
+
+    @Value("${bulk.jobs.max-upload-size}")
+    private DataSize maxUploadSize;
+
+    @Value("${bulk.jobs.instance-id}")
+    private String instanceId;
+
+    private Path workDir;
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        workDir = Files.createDirectories(Paths.get(workDirectory));
+
+        // Not exposed as a bean: a context-wide Executor would replace Boot's applicationTaskExecutor
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("bulk-job-");
+        executor.initialize();
+        log.info("Bulk job pool started with {} workers and a queue of {} (work dir {}).", workers, queueCapacity, workDir);
+
+        restoreJobs();
+    }
+
+    /**
+     * Loads the finished jobs saved in the work dir. Jobs this instance was running when it stopped are failed
+     * and their files deleted; unfinished jobs of other instances sharing the work dir are left to them.
+     */
+    private void restoreJobs() throws IOException {
+        int interrupted = 0;
+        try (DirectoryStream<Path> states = Files.newDirectoryStream(workDir, "*" + STATE_SUFFIX)) {
+            for (Path path : states) {
+                BulkJobState state = readState(path);
+                if (state == null) {
+                    continue;
+                }
+                BulkConversionJob job = toJob(state);
+                if (!job.isFinished()) {
+                    if (!instanceId.equals(state.getInstanceId())) {
+                        continue;
+                    }
+                    job.markFailed("The job was interrupted by a restart.");
+                    deleteQuietly(job.getInputFile());
+                    deleteQuietly(job.getResultFile());
+                    saveState(job);
+                    interrupted++;
+                }
+                jobs.put(job.getId(), job);
+            }
+        }
+        if (!jobs.isEmpty()) {
+            log.info("Restored {} bulk jobs from {}, {} of them failed as interrupted.", jobs.size(), workDir, interrupted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Spools the upload to disk, validates its header and queues it for processing.
+     * @throws BulkJobRejectedException if the worker pool and its queue are full.
+     * @throws UploadTooLargeException if the file exceeds {@code bulk.jobs.max-upload-size}.
+     */
+    public BulkConversionJobResponse submit(MultipartFile file, BulkResultFormat format) {
+        if (file.getSize() > maxUploadSize.toBytes()) {
+            throw new UploadTooLargeException("Bulk job files are limited to " + maxUploadSize.toMegabytes() + " MB.");
+        }
+        String jobId = UUID.randomUUID().toString();
+        Path inputFile = workDir.resolve(jobId + ".csv");
+        Path resultFile = resultFile(jobId, format);
+
+        try {
+            file.transferTo(inputFile);
+        } catch (IOException e) {
+            deleteQuietly(inputFile);
+            throw new BulkProcessingException("Failed to store bulk CSV file.", e);
+        }
+
+        // Reject malformed uploads now rather than reporting them as a failed job later
+        try (InputStream in = Files.newInputStream(inputFile);
+             CSVParser ignored = bulkConversionProcessor.open(in)) {
+            log.debug("Header of bulk job {} is valid.", jobId);
+        } catch (IOException e) {
+            deleteQuietly(inputFile);
+            throw new BulkProcessingException("Failed to process bulk CSV file.", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(inputFile);
+            throw e;
+        }
+
+        BulkConversionJob job = new BulkConversionJob(jobId, file.getOriginalFilename(), format,
+                inputFile, resultFile, Instant.now());
+        jobs.put(jobId, job);
+        saveState(job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(jobId);
+            deleteQuietly(stateFile(jobId));
+            deleteQuietly(inputFile);
+            throw new BulkJobRejectedException("Too many bulk conversion jobs are queued. Please try again later.");
+        }
+
+        log.info("Queued bulk job {} for file {}.", jobId, file.getOriginalFilename());
+        return toResponse(job);
+    }
+
+    public BulkConversionJobResponse getJob(String jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    /**
+     * Returns the result file of a completed job.
+     * @throws BulkJobNotReadyException if the job is still queued or running, or has failed.
+     */
+    public Resource getResults(String jobId) {
+        BulkConversionJob job = findJob(jobId);
+        if (job.getStatus() == BulkJobStatus.FAILED) {
+            throw new BulkJobNotReadyException("Bulk conversion job '" + jobId + "' failed: " + job.getFailureMessage());
+        }
+        if (job.getStatus() != BulkJobStatus.COMPLETED) {
+            throw new BulkJobNotReadyException("Bulk conversion job '" + jobId + "' is " + job.getStatus()
+                    + "; results are available once it has completed.");
+        }
+        return new FileSystemResource(job.getResultFile()) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                job.downloadOpened();
+                try {
+                    return new FilterInputStream(super.getInputStream()) {
+                        private boolean closed;
+
+                        @Override
+                        public void close() throws IOException {
+                            if (!closed) {
+                                closed = true;
+                                job.downloadClosed();
+                            }
+                            super.close();
+                        }
+                    };
+                } catch (IOException | RuntimeException e) {
+                    job.downloadClosed();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Drops finished jobs older than the retention period together with their files.
+     * A job whose results are still being downloaded is kept until a later run.
+     */
+    @Scheduled(fixedDelayString = "${bulk.jobs.cleanup-interval-ms}")
+    public void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> {
+            if (!job.isFinished() || job.getFinishedAt().isAfter(cutoff) || job.hasOpenDownloads()) {
+                return false;
+            }
+            deleteQuietly(stateFile(job.getId()));
+            deleteQuietly(job.getResultFile());
+            log.info("Purged expired bulk job {}.", job.getId());
+            return true;
+        });
+    }
+
+    private void run(BulkConversionJob job) {
+        job.markRunning();
+        log.info("Started bulk job {}.", job.getId());
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(job.getInputFile()));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(job.getResultFile()))) {
+            BulkResultWriter writer = BulkResultWriter.create(job.getFormat(), out, objectMapper);
+            bulkConversionProcessor.process(in, new BulkResultSink() {
+                @Override
+                public void accept(BulkConversionResult result) throws IOException {
+                    writer.accept(result);
+                    job.record(result);
+                }
+
+                @Override
+                public void chunkCompleted() throws IOException {
+                    writer.chunkCompleted();
+                }
+            });
+            writer.flush();
+            job.markCompleted();
+            log.info("Completed bulk job {}: {} rows ({} succeeded, {} failed) at {} rows/s.", job.getId(),
+                    job.getRowsProcessed(), job.getSuccessCount(), job.getErrorCount(),
+                    String.format("%.1f", job.getRowsPerSecond()));
+        } catch (Exception e) {
+            log.error("Bulk job {} failed after {} rows.", job.getId(), job.getRowsProcessed(), e);
+            job.markFailed(e.getMessage());
+            deleteQuietly(job.getResultFile());
+        } finally {
+            deleteQuietly(job.getInputFile());
+        }
+        saveState(job);
+    }
+
+    /**
+     * Looks the job up in memory, then in the work dir, where another instance or an earlier run of this one
+     * may have saved it.
+     */
+    private BulkConversionJob findJob(String jobId) {
+        BulkConversionJob job = jobs.get(jobId);
+        if (job != null) {
+            return job;
+        }
+        try {
+            UUID.fromString(jobId);
+        } catch (IllegalArgumentException e) {
+            throw new BulkJobNotFoundException(jobId);
+        }
+        Path path = stateFile(jobId);
+        BulkJobState state = Files.exists(path) ? readState(path) : null;
+        if (state == null) {
+            throw new BulkJobNotFoundException(jobId);
+        }
+        job = toJob(state);
+        if (!job.isFinished()) {
+            // Still running elsewhere: report what was saved, but do not keep a copy that would never change
+            return job;
+        }
+        BulkConversionJob existing = jobs.putIfAbsent(jobId, job);
+        return existing != null ? existing : job;
+    }
+
+    private Path resultFile(String jobId, BulkResultFormat format) {
+        return workDir.resolve(jobId + ".results." + format.name().toLowerCase());
+    }
+
+    private Path stateFile(String jobId) {
+        return workDir.resolve(jobId + STATE_SUFFIX);
+    }
+
+    /**
+     * Saves a job's state, replacing the file atomically so that readers never see it half written.
+     */
+    private void saveState(BulkConversionJob job) {
+        Path state = stateFile(job.getId());
+        Path temp = workDir.resolve(job.getId() + STATE_SUFFIX + ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), new BulkJobState(instanceId, toResponse(job)));
+            Files.move(temp, state, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.warn("Failed to save the state of bulk job {}; it will not survive a restart.", job.getId(), e);
+        }
+    }
+
+    private BulkJobState readState(Path state) {
+        try {
+            return objectMapper.readValue(state.toFile(), BulkJobState.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable bulk job state {}.", state, e);
+            return null;
+        }
+    }
+
+    private BulkConversionJob toJob(BulkJobState state) {
+        BulkConversionJobResponse saved = state.getJob();
+        return BulkConversionJob.restore(saved, workDir.resolve(saved.getJobId() + ".csv"),
+                resultFile(saved.getJobId(), saved.getFormat()));
+    }
+
+    private static BulkConversionJobResponse toResponse(BulkConversionJob job) {
+        return BulkConversionJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .fileName(job.getFileName())
+                .format(job.getFormat())
+                .rowsProcessed(job.getRowsProcessed())
+                .successCount(job.getSuccessCount())
+                .errorCount(job.getErrorCount())
+                .rowsPerSecond(job.getRowsPerSecond())
+                .submittedAt(job.getSubmittedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .message(job.getFailureMessage())
+                .build();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete bulk job file {}.", path, e);
+        }
+    }
+}
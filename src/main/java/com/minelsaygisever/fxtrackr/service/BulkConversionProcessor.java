@@ -0,0 +1,339 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.domain.RateSnapshot;
+import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.exception.*;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import com.minelsaygisever.fxtrackr.validation.ValidationUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Row-by-row engine behind the bulk CSV endpoints.
+ * Rows are converted against one rate snapshot for the whole upload, successful rows are committed
+ * in chunks of {@code bulk.persistence.chunk-size}, and results are handed to a {@link BulkResultSink}
+ * in line order once their chunk is committed.
+ * <p>
+ * Processing is a pipeline: the calling thread parses the upload into chunks, up to {@code bulk.parallelism}
+ * worker threads convert chunks concurrently, and the calling thread commits and emits them strictly in
+ * chunk order. At most twice as many chunks as workers are in flight per upload, so memory stays bounded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkConversionProcessor {
+
+    private static final String SUCCESS = "SUCCESS";
+    private static final String SUCCESS_MESSAGE = "OK";
+    private static final String INVALID_ROW_FORMAT = "INVALID_ROW_FORMAT";
+    private static final String MALFORMED_ROW_MESSAGE = "Row is malformed or has missing columns.";
+
+    private final RateSnapshotService rateSnapshotService;
+    private final CurrencyConversionRepository currencyConversionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ValidationUtil validationUtil;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> rowCounters = new ConcurrentHashMap<>();
+    private Timer chunkPersistTimer;
+
+    @Value("${bulk.persistence.chunk-size}")
+    private int chunkSize;
+
+    @Value("${bulk.parallelism}")
+    private int parallelism;
+
+    private ThreadPoolTaskExecutor conversionExecutor;
+    private int maxChunksInFlight;
+
+    @PostConstruct
+    public void init() {
+        chunkPersistTimer = Timer.builder("fxtrackr.bulk.chunk.persist")
+                .description("Time to commit one chunk of bulk conversions")
+                .register(meterRegistry);
+
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        if (workers == 1) {
+            maxChunksInFlight = 1;
+            log.info("Bulk conversion runs sequentially on the request thread.");
+            return;
+        }
+        maxChunksInFlight = workers * 2;
+        conversionExecutor = new ThreadPoolTaskExecutor();
+        conversionExecutor.setCorePoolSize(workers);
+        conversionExecutor.setMaxPoolSize(workers);
+        conversionExecutor.setThreadNamePrefix("bulk-convert-");
+        conversionExecutor.initialize();
+        log.info("Bulk conversion runs on {} worker threads.", workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (conversionExecutor != null) {
+            conversionExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Opens a CSV upload and validates its header before any row is read.
+     * The caller owns the returned parser and must close it.
+     * @throws InvalidCsvHeaderException if the header is missing required columns.
+     */
+    public CSVParser open(InputStream input) {
+        CSVParser csvParser = null;
+        try {
+            csvParser = CSVFormat.DEFAULT.withHeader("amount", "from", "to").withFirstRecordAsHeader()
+                    .parse(new InputStreamReader(input, StandardCharsets.UTF_8));
+            validationUtil.validateCsvHeaders(csvParser);
+            return csvParser;
+        } catch (InvalidCsvHeaderException ex) {
+            closeQuietly(csvParser);
+            throw ex;
+        } catch (Exception e) {
+            closeQuietly(csvParser);
+            throw new BulkProcessingException("Failed to process bulk CSV file.", e);
+        }
+    }
+
+    /**
+     * Opens, validates and processes a whole upload.
+     */
+    public void process(InputStream input, BulkResultSink sink) {
+        try (CSVParser csvParser = open(input)) {
+            process(csvParser, sink);
+        } catch (IOException e) {
+            throw new BulkProcessingException("Failed to process bulk CSV file.", e);
+        }
+    }
+
+    /**
+     * Processes every remaining row of an opened upload.
+     * @throws BulkProcessingException on failures that affect the whole upload (I/O, sink errors).
+     */
+    public void process(CSVParser csvParser, BulkResultSink sink) {
+        Upload upload = new Upload(csvParser.getHeaderMap(), rateSnapshotService.getSnapshot());
+
+        Deque<Future<ConvertedChunk>> inFlight = new ArrayDeque<>();
+        try {
+            List<CSVRecord> records = new ArrayList<>(chunkSize);
+            int firstLine = 1;
+            for (CSVRecord record : csvParser) {
+                records.add(record);
+                if (records.size() >= chunkSize) {
+                    submitChunk(records, firstLine, upload, inFlight, sink);
+                    firstLine += records.size();
+                    records = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!records.isEmpty()) {
+                submitChunk(records, firstLine, upload, inFlight, sink);
+            }
+            while (!inFlight.isEmpty()) {
+                completeChunk(await(inFlight.poll()), sink);
+            }
+        } catch (BulkProcessingException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BulkProcessingException("Failed to process bulk CSV file.", e);
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Hands a chunk to the conversion workers, first completing the oldest chunk if the window is full.
+     * With a parallelism of 1 the chunk is converted on the calling thread.
+     */
+    private void submitChunk(List<CSVRecord> records, int firstLine, Upload upload,
+                             Deque<Future<ConvertedChunk>> inFlight, BulkResultSink sink) throws IOException {
+        if (inFlight.size() >= maxChunksInFlight) {
+            completeChunk(await(inFlight.poll()), sink);
+        }
+        if (conversionExecutor == null) {
+            inFlight.add(CompletableFuture.completedFuture(convertChunk(records, firstLine, upload)));
+        } else {
+            inFlight.add(conversionExecutor.submit(() -> convertChunk(records, firstLine, upload)));
+        }
+    }
+
+    /**
+     * Rows of one chunk share a single timestamp and partition day; they are committed together anyway.
+     */
+    private ConvertedChunk convertChunk(List<CSVRecord> records, int firstLine, Upload upload) {
+        ConvertedChunk chunk = new ConvertedChunk(records.size());
+        Instant timestamp = Instant.now();
+        Integer day = CurrencyConversion.dayOf(timestamp);
+        int line = firstLine;
+        for (CSVRecord record : records) {
+            chunk.results.add(convertRow(record, line++, upload, timestamp, day, chunk.entities));
+        }
+        return chunk;
+    }
+
+    private static ConvertedChunk await(Future<ConvertedChunk> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new BulkProcessingException("Failed to process bulk CSV file.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkProcessingException("Bulk CSV processing was interrupted.", e);
+        }
+    }
+
+    /**
+     * Converts one row. Columns are read by the indices resolved once per upload, currency codes come back
+     * as the registry's shared instances, and the rate is a lookup in the upload's snapshot, so the only
+     * allocations left are the amounts, the transaction id and the entity and result themselves.
+     */
+    private BulkConversionResult convertRow(CSVRecord record, int line, Upload upload, Instant timestamp, Integer day,
+                                            List<CurrencyConversion> chunkEntities) {
+        if (record.size() < upload.minRecordSize) {
+            return new BulkConversionResult(line, null, null, INVALID_ROW_FORMAT, MALFORMED_ROW_MESSAGE);
+        }
+        try {
+            BigDecimal amount = new BigDecimal(record.get(upload.amountColumn).trim());
+            String from = validationUtil.validateAndNormalizeCurrencyCode(record.get(upload.fromColumn));
+            String to = validationUtil.validateAndNormalizeCurrencyCode(record.get(upload.toColumn));
+            amount = validationUtil.validateAndNormalizeAmount(amount);
+
+            BigDecimal rate = CurrencyConversionService.performTriangularCalculation(from, to, upload.rates);
+            BigDecimal convertedAmount = amount.multiply(rate).setScale(6, RoundingMode.HALF_UP);
+
+            String transactionId = UUID.randomUUID().toString();
+            chunkEntities.add(new CurrencyConversion(transactionId, from, to, amount, convertedAmount, rate, timestamp, day));
+            return new BulkConversionResult(line, transactionId, convertedAmount, SUCCESS, SUCCESS_MESSAGE);
+
+        } catch (UnsupportedCurrencyException | RateNotFoundException | InvalidAmountException e) {
+            return new BulkConversionResult(line, null, null, e.getErrorCode(), e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return new BulkConversionResult(line, null, null, INVALID_ROW_FORMAT, MALFORMED_ROW_MESSAGE);
+        } catch (Exception e) {
+            log.error("Unexpected error processing line {} of bulk file.", line, e);
+            return new BulkConversionResult(line, null, null, "PROCESSING_ERROR", "An unexpected error occurred.");
+        }
+    }
+
+    /**
+     * Persists a converted chunk and hands its results to the sink. Always runs on the calling thread,
+     * in chunk order, so commits and output follow the line order of the upload.
+     */
+    private void completeChunk(ConvertedChunk chunk, BulkResultSink sink) throws IOException {
+        chunkPersistTimer.record(() -> persistChunk(chunk.entities, chunk.results));
+        for (BulkConversionResult result : chunk.results) {
+            rowCounter(result.getCode()).increment();
+            sink.accept(result);
+        }
+        sink.chunkCompleted();
+    }
+
+    /**
+     * Commits the successful rows of one chunk in a single batched transaction.
+     * On failure the chunk is rolled back and its successful rows are turned into PERSISTENCE_ERROR results.
+     */
+    private void persistChunk(List<CurrencyConversion> entities, List<BulkConversionResult> chunkResults) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> currencyConversionRepository.insertAll(entities));
+        } catch (DataAccessException | TransactionException e) {
+            log.error("Failed to persist a chunk of {} bulk conversions (lines {}-{}).", entities.size(),
+                    chunkResults.get(0).getLine(), chunkResults.get(chunkResults.size() - 1).getLine(), e);
+            for (BulkConversionResult result : chunkResults) {
+                if (SUCCESS.equals(result.getCode())) {
+                    result.setTransactionId(null);
+                    result.setConvertedAmount(null);
+                    result.setCode("PERSISTENCE_ERROR");
+                    result.setMessage("The row could not be saved; its chunk was rolled back.");
+                }
+            }
+        }
+    }
+
+    /**
+     * State shared read-only by every chunk of one upload.
+     */
+    private static final class Upload {
+        private final int amountColumn;
+        private final int fromColumn;
+        private final int toColumn;
+        private final int minRecordSize;
+        private final RateSnapshot rates;
+
+        Upload(Map<String, Integer> headerMap, RateSnapshot rates) {
+            this.amountColumn = headerMap.get("amount");
+            this.fromColumn = headerMap.get("from");
+            this.toColumn = headerMap.get("to");
+            this.minRecordSize = Math.max(amountColumn, Math.max(fromColumn, toColumn)) + 1;
+            this.rates = rates;
+        }
+    }
+
+    /**
+     * Converted rows of one chunk, ready to be committed.
+     */
+    private static final class ConvertedChunk {
+        private final List<BulkConversionResult> results;
+        private final List<CurrencyConversion> entities;
+
+        ConvertedChunk(int size) {
+            this.results = new ArrayList<>(size);
+            this.entities = new ArrayList<>(size);
+        }
+    }
+
+    /**
+     * Bulk rows by result code; the rate of the counter is the bulk throughput.
+     */
+    private Counter rowCounter(String code) {
+        return rowCounters.computeIfAbsent(code, c -> Counter.builder("fxtrackr.bulk.rows")
+                .description("Bulk conversion rows processed, by result code")
+                .tag("code", c)
+                .register(meterRegistry));
+    }
+
+    private static void closeQuietly(CSVParser csvParser) {
+        if (csvParser == null) {
+            return;
+        }
+        try {
+            csvParser.close();
+        } catch (IOException e) {
+            log.debug("Failed to close CSV parser.", e);
+        }
+    }
+}
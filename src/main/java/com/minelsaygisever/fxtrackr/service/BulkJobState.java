@@ -0,0 +1,17 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.dto.BulkConversionJobResponse;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * What is saved of a bulk job in the work dir: the job as the API reports it, and the instance running it.
+ */
+@Value
+@Builder
+@Jacksonized
+class BulkJobState {
+    String instanceId;
+    BulkConversionJobResponse job;
+}
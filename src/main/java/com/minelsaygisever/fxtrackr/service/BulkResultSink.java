@@ -0,0 +1,20 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+
+import java.io.IOException;
+
+/**
+ * Receives bulk conversion results in line order as soon as their chunk has been committed.
+ */
+@FunctionalInterface
+public interface BulkResultSink {
+
+    void accept(BulkConversionResult result) throws IOException;
+
+    /**
+     * Called after the results of a committed chunk have all been passed to {@link #accept}.
+     */
+    default void chunkCompleted() throws IOException {
+    }
+}
@@ -0,0 +1,92 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.dto.BulkResultFormat;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes bulk conversion results to an output stream, one record at a time.
+ * Output is buffered and pushed to the stream at the end of every chunk, so memory stays bounded
+ * and the client sees results while the upload is still being processed.
+ * The underlying stream is flushed but never closed.
+ */
+public abstract class BulkResultWriter implements BulkResultSink {
+
+    public static BulkResultWriter create(BulkResultFormat format, OutputStream out, ObjectMapper objectMapper)
+            throws IOException {
+        switch (format) {
+            case CSV:
+                return new CsvResultWriter(out);
+            case NDJSON:
+            default:
+                return new NdjsonResultWriter(out, objectMapper);
+        }
+    }
+
+    @Override
+    public void chunkCompleted() throws IOException {
+        flush();
+    }
+
+    public abstract void flush() throws IOException;
+
+    private static final class NdjsonResultWriter extends BulkResultWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter objectWriter;
+
+        NdjsonResultWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.setRootValueSeparator(null);
+            this.objectWriter = objectMapper.writerFor(BulkConversionResult.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void accept(BulkConversionResult result) throws IOException {
+            objectWriter.writeValue(generator, result);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvResultWriter extends BulkResultWriter {
+        private final CSVPrinter printer;
+
+        CsvResultWriter(OutputStream out) throws IOException {
+            this.printer = new CSVPrinter(
+                    new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)),
+                    CSVFormat.DEFAULT.withHeader("line", "transactionId", "convertedAmount", "code", "message"));
+        }
+
+        @Override
+        public void accept(BulkConversionResult result) throws IOException {
+            printer.printRecord(
+                    result.getLine(),
+                    result.getTransactionId(),
+                    result.getConvertedAmount() == null ? null : result.getConvertedAmount().toPlainString(),
+                    result.getCode(),
+                    result.getMessage());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            printer.flush();
+        }
+    }
+}
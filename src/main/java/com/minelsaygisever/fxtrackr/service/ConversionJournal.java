@@ -0,0 +1,294 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyCodes;
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of conversions in memory-mapped segment files.
+ * <p>
+ * Every conversion is one fixed-size record addressed by a global sequence number: record n lives in
+ * segment n / segmentRecords at slot n % segmentRecords. Segments are preallocated at full size, so an
+ * append is a copy into mapped memory.
+ * <pre>
+ *   magic (4) | id as UUID msb, lsb (16) | packed source, target currency (2 + 2)
+ *   source amount, converted amount, rate: scale (1) | unscaled value (8) each
+ *   timestamp epoch second (8) | nano (4) | zero padding | CRC32 of all preceding bytes (4)
+ * </pre>
+ * A record counts only once its CRC matches, so a write torn by a crash is discarded on recovery.
+ * <p>
+ * The drain position, the first sequence not yet copied to the database, is kept in a checkpoint file
+ * that is replaced atomically; segments entirely before it are deleted.
+ * <p>
+ * Appends must be serialized by the caller. Reads come from one thread at a time, and only below
+ * {@link #getWritePosition()}; they may run concurrently with appends.
+ */
+final class ConversionJournal implements Closeable {
+
+    static final int RECORD_SIZE = 128;
+
+    private static final int MAGIC = 0x46584a31;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path dir;
+    private final int segmentRecords;
+    private final long segmentBytes;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 writeCrc = new CRC32();
+    private final CRC32 readCrc = new CRC32();
+
+    private MappedByteBuffer writeSegment;
+    // Written by the appending thread, read by the checkpointing one
+    private volatile long writeSegmentNo = -1;
+    private volatile long writePosition;
+
+    private MappedByteBuffer readSegment;
+    private long readSegmentNo = -1;
+
+    private volatile long drainPosition;
+
+    private ConversionJournal(Path dir, int segmentRecords) {
+        if (segmentRecords <= 0 || (long) segmentRecords * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid journal segment size: " + segmentRecords + " records");
+        }
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        this.segmentBytes = (long) segmentRecords * RECORD_SIZE;
+    }
+
+    /**
+     * Opens the journal in the given directory, recovering the write position after the last valid record
+     * and the drain position from the checkpoint.
+     */
+    static ConversionJournal open(Path dir, int segmentRecords) throws IOException {
+        Files.createDirectories(dir);
+        ConversionJournal journal = new ConversionJournal(dir, segmentRecords);
+        journal.recover();
+        return journal;
+    }
+
+    private void recover() throws IOException {
+        Path checkpoint = dir.resolve(CHECKPOINT);
+        drainPosition = Files.exists(checkpoint) ? ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong() : 0;
+
+        List<Long> segments = listSegments();
+        long lastSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        lastSegment = Math.max(lastSegment, drainPosition / segmentRecords);
+
+        writeSegment = map(lastSegment);
+        writeSegmentNo = lastSegment;
+        int slot = 0;
+        while (slot < segmentRecords && isValid(writeSegment, slot)) {
+            slot++;
+        }
+        // Clear whatever a crash left after the last valid record, so it can never be mistaken for a record later
+        for (int offset = slot * RECORD_SIZE; offset < segmentBytes; offset += Long.BYTES) {
+            writeSegment.putLong(offset, 0L);
+        }
+        writePosition = lastSegment * segmentRecords + slot;
+        drainPosition = Math.min(drainPosition, writePosition);
+
+        deleteSegmentsBefore(drainPosition / segmentRecords);
+    }
+
+    /**
+     * Sequence number the next append will get; every sequence below it holds a valid record.
+     */
+    long getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * First sequence number not yet drained to the database.
+     */
+    long getDrainPosition() {
+        return drainPosition;
+    }
+
+    /**
+     * Appends one conversion. Its id must be a UUID and it must have a timestamp.
+     *
+     * @return the sequence number of the record
+     * @throws IllegalArgumentException if the conversion cannot be encoded in a fixed-size record
+     */
+    long append(CurrencyConversion conversion) throws IOException {
+        encode(conversion);
+
+        long sequence = writePosition;
+        long segmentNo = sequence / segmentRecords;
+        if (segmentNo != writeSegmentNo) {
+            writeSegment.force();
+            writeSegment = map(segmentNo);
+            writeSegmentNo = segmentNo;
+        }
+        writeSegment.position((int) (sequence % segmentRecords) * RECORD_SIZE);
+        writeSegment.put(record);
+        writePosition = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * Flushes appended records of the current segment to the storage device.
+     */
+    void force() {
+        writeSegment.force();
+    }
+
+    /**
+     * Reads the record with the given sequence number, which must be below {@link #getWritePosition()}.
+     */
+    CurrencyConversion read(long sequence) throws IOException {
+        long segmentNo = sequence / segmentRecords;
+        if (segmentNo != readSegmentNo) {
+            readSegment = map(segmentNo);
+            readSegmentNo = segmentNo;
+        }
+        int slot = (int) (sequence % segmentRecords);
+        if (!isValid(readSegment, slot)) {
+            throw new IOException("Corrupted journal record " + sequence);
+        }
+        return decode(readSegment, slot * RECORD_SIZE);
+    }
+
+    /**
+     * Records that every sequence below {@code position} is in the database and deletes segments no longer needed.
+     */
+    void checkpoint(long position) throws IOException {
+        Path temp = dir.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, position));
+            channel.force(true);
+        }
+        Files.move(temp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        drainPosition = position;
+        deleteSegmentsBefore(Math.min(position / segmentRecords, writeSegmentNo));
+    }
+
+    @Override
+    public void close() {
+        if (writeSegment != null) {
+            writeSegment.force();
+        }
+    }
+
+    private void encode(CurrencyConversion conversion) {
+        int source = CurrencyCodes.pack(conversion.getSourceCurrency());
+        int target = CurrencyCodes.pack(conversion.getTargetCurrency());
+        if (source == CurrencyCodes.INVALID || target == CurrencyCodes.INVALID) {
+            throw new IllegalArgumentException("Currency codes cannot be journaled");
+        }
+        UUID id = UUID.fromString(conversion.getId());
+        Instant timestamp = conversion.getTimestamp();
+
+        record.clear();
+        record.putInt(MAGIC)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .putShort((short) source)
+                .putShort((short) target);
+        putDecimal(conversion.getSourceAmount());
+        putDecimal(conversion.getConvertedAmount());
+        putDecimal(conversion.getExchangeRate());
+        record.putLong(timestamp.getEpochSecond())
+                .putInt(timestamp.getNano());
+        while (record.position() < CRC_OFFSET) {
+            record.put((byte) 0);
+        }
+        writeCrc.reset();
+        writeCrc.update(record.array(), 0, CRC_OFFSET);
+        record.putInt((int) writeCrc.getValue());
+        record.flip();
+    }
+
+    private void putDecimal(BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() > 63 || value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Amount cannot be journaled: " + value.toPlainString());
+        }
+        record.put((byte) value.scale()).putLong(unscaled.longValue());
+    }
+
+    private static CurrencyConversion decode(ByteBuffer segment, int offset) {
+        int position = offset + Integer.BYTES;
+        UUID id = new UUID(segment.getLong(position), segment.getLong(position + 8));
+        position += 16;
+        String source = CurrencyCodes.unpack(segment.getShort(position));
+        String target = CurrencyCodes.unpack(segment.getShort(position + 2));
+        position += 4;
+        BigDecimal sourceAmount = BigDecimal.valueOf(segment.getLong(position + 1), segment.get(position));
+        position += 9;
+        BigDecimal convertedAmount = BigDecimal.valueOf(segment.getLong(position + 1), segment.get(position));
+        position += 9;
+        BigDecimal rate = BigDecimal.valueOf(segment.getLong(position + 1), segment.get(position));
+        position += 9;
+        Instant timestamp = Instant.ofEpochSecond(segment.getLong(position), segment.getInt(position + 8));
+        return new CurrencyConversion(id.toString(), source, target, sourceAmount, convertedAmount, rate,
+                timestamp, CurrencyConversion.dayOf(timestamp));
+    }
+
+    private boolean isValid(ByteBuffer segment, int slot) {
+        int offset = slot * RECORD_SIZE;
+        if (segment.getInt(offset) != MAGIC) {
+            return false;
+        }
+        ByteBuffer view = segment.duplicate();
+        view.position(offset).limit(offset + CRC_OFFSET);
+        readCrc.reset();
+        readCrc.update(view);
+        return (int) readCrc.getValue() == segment.getInt(offset + CRC_OFFSET);
+    }
+
+    private MappedByteBuffer map(long segmentNo) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentNo), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private Path segmentPath(long segmentNo) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segmentNo, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private void deleteSegmentsBefore(long segmentNo) throws IOException {
+        for (long segment : listSegments()) {
+            if (segment >= segmentNo) {
+                break;
+            }
+            Files.deleteIfExists(segmentPath(segment));
+        }
+    }
+}
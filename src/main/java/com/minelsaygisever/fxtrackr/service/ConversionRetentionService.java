@@ -0,0 +1,156 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.dto.ConversionHistoryResponse;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Enforces the retention policy of the conversion history. Conversions are partitioned by UTC day
+ * ({@code CONVERSION_DAY}); every day older than {@code conversion.retention.days} is first written to a
+ * gzipped CSV file in {@code conversion.retention.archive-dir}, read in pages of
+ * {@code conversion.retention.batch-size} rows, then deleted with a single DELETE for the whole day.
+ * <p>
+ * An archive file only appears, by atomic rename, once its day has been written completely. If a run stops
+ * while deleting, the next run finds the file and only finishes the delete.
+ */
+@Slf4j
+@Service
+public class ConversionRetentionService {
+
+    private static final String[] ARCHIVE_HEADER = {
+            "transactionId", "sourceCurrency", "targetCurrency", "sourceAmount", "convertedAmount", "exchangeRate", "timestamp"
+    };
+
+    private final CurrencyConversionRepository currencyConversionRepository;
+    private final Counter archivedRows;
+    private final Counter deletedRows;
+
+    @Value("${conversion.retention.days}")
+    private int retentionDays;
+
+    @Value("${conversion.retention.batch-size}")
+    private int batchSize;
+
+    @Value("${conversion.retention.archive-enabled}")
+    private boolean archiveEnabled;
+
+    @Value("${conversion.retention.archive-dir}")
+    private String archiveDirectory;
+
+    public ConversionRetentionService(CurrencyConversionRepository currencyConversionRepository,
+                                      MeterRegistry meterRegistry) {
+        this.currencyConversionRepository = currencyConversionRepository;
+        this.archivedRows = Counter.builder("fxtrackr.retention.rows")
+                .description("Conversions processed by the retention purge")
+                .tag("action", "archived")
+                .register(meterRegistry);
+        this.deletedRows = Counter.builder("fxtrackr.retention.rows")
+                .description("Conversions processed by the retention purge")
+                .tag("action", "deleted")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${conversion.retention.cron}")
+    public void purgeExpiredDays() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+        long deleted = purgeBefore(cutoff);
+        if (deleted > 0) {
+            log.info("Retention purge removed {} conversions from before {}.", deleted, cutoff);
+        }
+    }
+
+    /**
+     * Archives (if enabled) and deletes every day before the given one, oldest first.
+     * A day whose archive cannot be written is kept and retried on the next run.
+     *
+     * @return the number of conversions deleted
+     */
+    public long purgeBefore(LocalDate cutoff) {
+        long deleted = 0;
+        for (Integer day : currencyConversionRepository.findDaysBefore((int) cutoff.toEpochDay())) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            try {
+                if (archiveEnabled) {
+                    archive(day, date);
+                }
+            } catch (IOException e) {
+                log.error("Failed to archive the conversions of {}; keeping them until the next run.", date, e);
+                continue;
+            }
+            deleted += delete(day);
+        }
+        return deleted;
+    }
+
+    private void archive(int day, LocalDate date) throws IOException {
+        Path archiveDir = Files.createDirectories(Paths.get(archiveDirectory));
+        Path target = archiveDir.resolve("conversions-" + date + ".csv.gz");
+        if (Files.exists(target)) {
+            log.info("Conversions of {} are already archived to {}; finishing the delete.", date, target);
+            return;
+        }
+
+        Path partial = archiveDir.resolve(target.getFileName() + ".partial");
+        Pageable batch = PageRequest.of(0, batchSize);
+        long rows = 0;
+        try (CSVPrinter printer = new CSVPrinter(
+                new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(partial)), StandardCharsets.UTF_8)),
+                CSVFormat.DEFAULT.withHeader(ARCHIVE_HEADER))) {
+            List<ConversionHistoryResponse> page = currencyConversionRepository.findFirstKeysetPage(day, batch);
+            while (!page.isEmpty()) {
+                for (ConversionHistoryResponse conversion : page) {
+                    printer.printRecord(
+                            conversion.getTransactionId(),
+                            conversion.getSourceCurrency(),
+                            conversion.getTargetCurrency(),
+                            conversion.getSourceAmount().toPlainString(),
+                            conversion.getConvertedAmount().toPlainString(),
+                            conversion.getExchangeRate().toPlainString(),
+                            conversion.getTimestamp());
+                }
+                rows += page.size();
+                ConversionHistoryResponse last = page.get(page.size() - 1);
+                page = currencyConversionRepository.findKeysetPageAfter(
+                        day, last.getTimestamp(), last.getTransactionId(), batch);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        archivedRows.increment(rows);
+        log.info("Archived {} conversions of {} to {}.", rows, date, target);
+    }
+
+    private long delete(int day) {
+        long deleted = currencyConversionRepository.deleteByDay(day);
+        deletedRows.increment(deleted);
+        return deleted;
+    }
+}
@@ -0,0 +1,25 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+
+import java.util.Optional;
+
+/**
+ * Durably stores a single conversion. Selected by {@code conversion.write-mode}; every implementation
+ * returns only once the conversion is committed or journaled, so the returned transaction id can be looked up
+ * right away, from the database or through {@link #findPending(String)}.
+ */
+public interface ConversionWriter {
+
+    /**
+     * Stores the conversion and returns it with its id and timestamp assigned.
+     */
+    CurrencyConversion write(CurrencyConversion conversion);
+
+    /**
+     * Returns a conversion that was acknowledged but is not in the database yet, if this writer has any.
+     */
+    default Optional<CurrencyConversion> findPending(String transactionId) {
+        return Optional.empty();
+    }
+}
@@ -1,34 +1,37 @@
 package com.minelsaygisever.fxtrackr.service;
 
-import com.minelsaygisever.fxtrackr.client.FixerRestClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.domain.RateSnapshot;
 import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.dto.BulkResultFormat;
 import com.minelsaygisever.fxtrackr.dto.ConversionHistoryResponse;
+import com.minelsaygisever.fxtrackr.dto.ConversionHistorySlice;
 import com.minelsaygisever.fxtrackr.dto.CurrencyConversionResponse;
 import com.minelsaygisever.fxtrackr.dto.ExchangeRateResponse;
+import com.minelsaygisever.fxtrackr.dto.HistoricalRateResponse;
 import com.minelsaygisever.fxtrackr.exception.*;
-import com.minelsaygisever.fxtrackr.mapper.ConversionMapper;
 import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
 import com.minelsaygisever.fxtrackr.validation.ValidationUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
@@ -39,33 +42,43 @@ import java.util.*;
 @Validated
 @RequiredArgsConstructor
 public class CurrencyConversionService {
-    private final FixerRestClient fixerRestClient;
-    private final ExchangeRateCacheService exchangeRateCacheService;
+    private final RateSnapshotService rateSnapshotService;
+    private final RateHistoryService rateHistoryService;
     private final CurrencyConversionRepository currencyConversionRepository;
+    private final BulkConversionProcessor bulkConversionProcessor;
+    private final ConversionWriter conversionWriter;
+    private final ObjectMapper objectMapper;
     @Autowired
     private ValidationUtil validationUtil;
-    @Autowired
-    private ConversionMapper conversionMapper;
+
+    @Value("${bulk.max-upload-size}")
+    private DataSize bulkMaxUploadSize;
 
     public ExchangeRateResponse getExchangeRate(String from, String to) {
         String fromNorm = validationUtil.validateAndNormalizeCurrencyCode(from);
         String toNorm = validationUtil.validateAndNormalizeCurrencyCode(to);
 
-        BigDecimal rate = calculateExchangeRate(fromNorm, toNorm);
+        RateSnapshot snapshot = snapshotFor(fromNorm, toNorm);
+        BigDecimal rate = calculateExchangeRate(fromNorm, toNorm, snapshot);
 
         return ExchangeRateResponse.builder()
                 .exchangeRate(rate)
+                .staleRateAgeSeconds(rateSnapshotService.staleAgeSeconds(snapshot))
                 .build();
     }
 
 
-    @Transactional
+    /**
+     * Converts and records one amount. Deliberately not {@code @Transactional}: the {@link ConversionWriter}
+     * owns the commit, and with group commit a surrounding transaction would be held open while waiting.
+     */
     public CurrencyConversionResponse convertAndSaveCurrency(BigDecimal amount, String from, String to) {
         BigDecimal amountNorm = validationUtil.validateAndNormalizeAmount(amount);
         String fromNorm = validationUtil.validateAndNormalizeCurrencyCode(from);
         String toNorm = validationUtil.validateAndNormalizeCurrencyCode(to);
 
-        BigDecimal rate = calculateExchangeRate(fromNorm, toNorm);
+        RateSnapshot snapshot = snapshotFor(fromNorm, toNorm);
+        BigDecimal rate = calculateExchangeRate(fromNorm, toNorm, snapshot);
         BigDecimal convertedAmount = amountNorm.multiply(rate).setScale(6, RoundingMode.HALF_UP);
 
         CurrencyConversion entity = CurrencyConversion.builder()
@@ -76,14 +89,41 @@ public class CurrencyConversionService {
                 .exchangeRate(rate)
                 .build();
 
-        CurrencyConversion saved = currencyConversionRepository.save(entity);
+        CurrencyConversion saved = conversionWriter.write(entity);
 
         return CurrencyConversionResponse.builder()
                 .transactionId(saved.getId())
                 .convertedAmount(saved.getConvertedAmount())
+                .staleRateAgeSeconds(rateSnapshotService.staleAgeSeconds(snapshot))
+                .build();
+    }
+
+    /**
+     * Returns the exchange rate that was in effect at the given point in time.
+     */
+    public HistoricalRateResponse getHistoricalExchangeRate(String from, String to, Instant at) {
+        String fromNorm = validationUtil.validateAndNormalizeCurrencyCode(from);
+        String toNorm = validationUtil.validateAndNormalizeCurrencyCode(to);
+
+        RateSnapshot rates = rateHistoryService.getSnapshotAt(at);
+        return HistoricalRateResponse.builder()
+                .exchangeRate(fromNorm.equals(toNorm) ? BigDecimal.ONE : performTriangularCalculation(fromNorm, toNorm, rates))
+                .requestedAt(at)
+                .ratesFetchedAt(rates.getFetchedAt())
                 .build();
     }
 
+    /**
+     * Converts an amount with the rates in effect at the given point in time. Nothing is saved.
+     */
+    public HistoricalRateResponse convertAt(BigDecimal amount, String from, String to, Instant at) {
+        BigDecimal amountNorm = validationUtil.validateAndNormalizeAmount(amount);
+        HistoricalRateResponse response = getHistoricalExchangeRate(from, to, at);
+        response.setAmount(amountNorm);
+        response.setConvertedAmount(amountNorm.multiply(response.getExchangeRate()).setScale(6, RoundingMode.HALF_UP));
+        return response;
+    }
+
     public Page<ConversionHistoryResponse> getConversionHistory(
             String transactionId,
             LocalDate date,
@@ -91,12 +131,14 @@ public class CurrencyConversionService {
     ) {
         // 1) If transactionId is present, always look it up first
         if (transactionId != null && !transactionId.isBlank()) {
-            return currencyConversionRepository.findById(transactionId)
-                    .map(entity -> {
-                        // If a date filter was also provided, verify the entity’s timestamp matches
+            return currencyConversionRepository.findHistoryById(transactionId)
+                    // Acknowledged by the journal but not drained to the database yet
+                    .or(() -> conversionWriter.findPending(transactionId).map(CurrencyConversionService::toHistoryResponse))
+                    .map(conversion -> {
+                        // If a date filter was also provided, verify the conversion’s timestamp matches
                         if (date != null) {
                             LocalDate entityDate =
-                                    entity.getTimestamp()
+                                    conversion.getTimestamp()
                                             .atZone(ZoneOffset.UTC)
                                             .toLocalDate();
                             // If it doesn’t match, return an empty page
@@ -110,7 +152,7 @@ public class CurrencyConversionService {
                         }
                         // No date filter or date matches — return a single‐item page
                         return new PageImpl<>(
-                                Collections.singletonList(conversionMapper.toHistoryResponse(entity)),
+                                Collections.singletonList(conversion),
                                 pageable,
                                 1L
                         );
@@ -123,129 +165,153 @@ public class CurrencyConversionService {
                     ));
         }
 
-        // 2) If only a date filter is provided, perform a normal date‐range query
+        // 2) If only a date filter is provided, query that day's partition
         if (date != null) {
-            Instant start = date.atStartOfDay(ZoneOffset.UTC).toInstant();
-            Instant end   = date.plusDays(1)
-                    .atStartOfDay(ZoneOffset.UTC)
-                    .toInstant();
-
-            return currencyConversionRepository
-                    .findByTimestampBetween(start, end, pageable)
-                    .map(conversionMapper::toHistoryResponse);
+            return currencyConversionRepository.findHistoryByDay((int) date.toEpochDay(), pageable);
         }
 
         throw new FilterParameterException("Either transactionId or date must be provided");
     }
 
-    @Transactional
-    public List<BulkConversionResult> bulkConvert(MultipartFile file) {
-        Map<String, BigDecimal> ratesForThisJob = getLatestRatesWithCacheFallback();
+    /**
+     * Cursor-mode history search. Pages through a day's conversions ordered by (timestamp, id)
+     * without OFFSET and without counting the whole day, so every page costs the same.
+     *
+     * @param cursor the {@code nextCursor} of the previous page, or null for the first page
+     * @param size   maximum number of conversions on the page
+     */
+    public ConversionHistorySlice getConversionHistorySlice(
+            String transactionId,
+            LocalDate date,
+            String cursor,
+            int size
+    ) {
+        // A transaction ID matches at most one conversion, so there is never a next page
+        if (transactionId != null && !transactionId.isBlank()) {
+            List<ConversionHistoryResponse> content = getConversionHistory(transactionId, date, Pageable.unpaged())
+                    .getContent();
+            return ConversionHistorySlice.builder()
+                    .content(content)
+                    .size(content.size())
+                    .hasNext(false)
+                    .build();
+        }
+
+        if (date == null) {
+            throw new FilterParameterException("Either transactionId or date must be provided");
+        }
 
+        int day = (int) date.toEpochDay();
+        // Fetch one extra row to learn whether another page follows
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<ConversionHistoryResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = currencyConversionRepository.findFirstKeysetPage(day, limit);
+        } else {
+            HistoryCursor after = HistoryCursor.decode(cursor);
+            rows = currencyConversionRepository.findKeysetPageAfter(
+                    day, after.getTimestamp(), after.getId(), limit);
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<ConversionHistoryResponse> content = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ConversionHistoryResponse last = content.get(content.size() - 1);
+            nextCursor = new HistoryCursor(last.getTimestamp(), last.getTransactionId()).encode();
+        }
+        return ConversionHistorySlice.builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Converts every row of a CSV upload and returns all results at once.
+     * See {@link BulkConversionProcessor} for chunked persistence and failure isolation.
+     * @throws UploadTooLargeException if the file exceeds {@code bulk.max-upload-size}; larger files belong
+     * on the streaming endpoint.
+     */
+    public List<BulkConversionResult> bulkConvert(MultipartFile file) {
+        if (file.getSize() > bulkMaxUploadSize.toBytes()) {
+            throw new UploadTooLargeException("Bulk CSV files are limited to " + bulkMaxUploadSize.toMegabytes()
+                    + " MB; use /api/convert/bulk/stream or a bulk job for larger files.");
+        }
         List<BulkConversionResult> results = new ArrayList<>();
-        try (
-                Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8);
-                CSVParser csvParser = CSVFormat.DEFAULT.withHeader("amount", "from", "to").withFirstRecordAsHeader().parse(reader)
-        ) {
-            validationUtil.validateCsvHeaders(csvParser);
-
-            int line = 1;
-            for (CSVRecord record : csvParser) {
-                BulkConversionResult.BulkConversionResultBuilder resultBuilder = BulkConversionResult.builder().line(line);
-                try {
-                    BigDecimal amount = new BigDecimal(record.get("amount").trim());
-                    String from = validationUtil.validateAndNormalizeCurrencyCode(record.get("from").trim());
-                    String to = validationUtil.validateAndNormalizeCurrencyCode(record.get("to").trim());
-                    amount = validationUtil.validateAndNormalizeAmount(amount);
-
-                    BigDecimal rate = performTriangularCalculation(from, to, new HashMap<>(ratesForThisJob));
-                    BigDecimal convertedAmount = amount.multiply(rate).setScale(6, RoundingMode.HALF_UP);
-
-                    CurrencyConversion entity = CurrencyConversion.builder()
-                            .sourceCurrency(from)
-                            .targetCurrency(to)
-                            .sourceAmount(amount)
-                            .convertedAmount(convertedAmount)
-                            .exchangeRate(rate)
-                            .build();
-                    CurrencyConversion saved = currencyConversionRepository.save(entity);
-
-                    resultBuilder.transactionId(saved.getId())
-                            .convertedAmount(saved.getConvertedAmount())
-                            .code("SUCCESS")
-                            .message("OK");
-
-                } catch (UnsupportedCurrencyException | RateNotFoundException | InvalidAmountException e) {
-                    resultBuilder.code(e.getErrorCode()).message(e.getMessage());
-                } catch (IllegalArgumentException e) {
-                    resultBuilder.code("INVALID_ROW_FORMAT").message("Row is malformed or has missing columns.");
-                } catch (Exception e) {
-                    log.error("Unexpected error processing line {} of bulk file.", line, e);
-                    resultBuilder.code("PROCESSING_ERROR").message("An unexpected error occurred.");
-                }
-                results.add(resultBuilder.build());
-                line++;
-            }
-            return results;
-        } catch (InvalidCsvHeaderException ex) {
-            throw ex;
-        } catch (Exception e) {
+        try (InputStream input = file.getInputStream()) {
+            bulkConversionProcessor.process(input, results::add);
+        } catch (IOException e) {
             throw new BulkProcessingException("Failed to process bulk CSV file.", e);
         }
+        return results;
     }
 
     /**
-     * Central method for calculating exchange rates for single requests.
-     * It uses the main helper method to get the definitive rate map.
+     * Converts a CSV upload, writing each result to the response as soon as its chunk is committed.
+     * The header is validated before this method returns, so a bad header is still reported as a 400.
      */
-    private BigDecimal calculateExchangeRate(String from, String to) {
-        if (from.equals(to)) {
-            return BigDecimal.ONE;
+    public StreamingResponseBody bulkConvertStreaming(MultipartFile file, BulkResultFormat format) {
+        CSVParser csvParser;
+        try {
+            csvParser = bulkConversionProcessor.open(file.getInputStream());
+        } catch (IOException e) {
+            throw new BulkProcessingException("Failed to process bulk CSV file.", e);
         }
-
-        Map<String, BigDecimal> rates = getLatestRatesWithCacheFallback();
-        return performTriangularCalculation(from, to, rates);
+        return out -> {
+            try (CSVParser parser = csvParser) {
+                BulkResultWriter writer = BulkResultWriter.create(format, out, objectMapper);
+                bulkConversionProcessor.process(parser, writer);
+                writer.flush();
+            }
+        };
     }
 
     /**
-     * Performs the triangular calculation based on a given map of rates.
-     * @throws ExternalApiException if a currency is not found in the rates map.
+     * The current in-process rate snapshot for a single request, or null when converting a currency into
+     * itself, which needs no rates.
      */
-    private BigDecimal performTriangularCalculation(String from, String to, Map<String, BigDecimal> rates) {
-        Object fromRateObj = rates.get(from);
-        Object toRateObj = rates.get(to);
+    private RateSnapshot snapshotFor(String from, String to) {
+        return from.equals(to) ? null : rateSnapshotService.getSnapshot();
+    }
 
-        if (fromRateObj == null || toRateObj == null) {
-            throw new RateNotFoundException("Rate for " + from + " or " + to + " not found in the data source.");
+    /**
+     * Central method for calculating exchange rates for single requests.
+     */
+    private static BigDecimal calculateExchangeRate(String from, String to, RateSnapshot snapshot) {
+        if (snapshot == null) {
+            return BigDecimal.ONE;
         }
 
-        BigDecimal fromRate = new BigDecimal(fromRateObj.toString());
-        BigDecimal toRate = new BigDecimal(toRateObj.toString());
+        return performTriangularCalculation(from, to, snapshot);
+    }
 
-        return toRate.divide(fromRate, 6, RoundingMode.HALF_UP);
+    private static ConversionHistoryResponse toHistoryResponse(CurrencyConversion conversion) {
+        return new ConversionHistoryResponse(
+                conversion.getId(),
+                conversion.getSourceCurrency(),
+                conversion.getTargetCurrency(),
+                conversion.getSourceAmount(),
+                conversion.getConvertedAmount(),
+                conversion.getExchangeRate(),
+                conversion.getTimestamp());
     }
 
     /**
-     * Gets the latest rates map, using cache first and falling back to the live API.
-     * This is the single source of truth for getting a rate map.
+     * Resolves the pair rate from the snapshot's precomputed cross-rate matrix.
+     * @throws RateNotFoundException if a currency is not found in the snapshot.
      */
-    private Map<String, BigDecimal> getLatestRatesWithCacheFallback() {
-        return exchangeRateCacheService.getRatesMap()
-                .map(this::convertMapToBigDecimal)
-                .orElseGet(() -> {
-                    log.warn("Rates not found in cache. Fetching from live API for the operation.");
-                    Map<String, BigDecimal> liveRates = fixerRestClient.getLatestRates();
-                    exchangeRateCacheService.updateRates(liveRates);
-                    return liveRates;
-                });
-    }
+    static BigDecimal performTriangularCalculation(String from, String to, RateSnapshot rates) {
+        BigDecimal rate = rates.getCrossRate(from, to);
 
-    private Map<String, BigDecimal> convertMapToBigDecimal(Map<Object, Object> objectMap) {
-        Map<String, BigDecimal> resultMap = new HashMap<>();
-        for (Map.Entry<Object, Object> entry : objectMap.entrySet()) {
-            resultMap.put(entry.getKey().toString(), new BigDecimal(entry.getValue().toString()));
+        if (rate == null) {
+            throw new RateNotFoundException("Rate for " + from + " or " + to + " not found in the data source.");
         }
-        return resultMap;
+
+        return rate;
     }
 
 }
@@ -3,17 +3,31 @@ package com.minelsaygisever.fxtrackr.service;
 import com.minelsaygisever.fxtrackr.client.FixerRestClient;
 import com.minelsaygisever.fxtrackr.domain.Currency;
 import com.minelsaygisever.fxtrackr.repository.CurrencyRepository;
+import lombok.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This component runs on application startup to initialize currency data.
  * It fetches all supported currency symbols from the external API (Fixer)
- * and populates the 'currencies' table in the database.
+ * and brings the 'currencies' table in line with them.
+ * <p>
+ * The existing currencies are read in one query and compared with the symbols: new codes are inserted as
+ * active, renamed ones get their new name and active ones Fixer no longer lists are deactivated. A currency this
+ * sync deactivated is reactivated once Fixer lists it again; one deactivated by hand stays inactive. All of it
+ * is applied in one transaction with batched statements.
  */
 @Component
 public class CurrencyDataInitializer implements CommandLineRunner {
@@ -22,10 +36,17 @@ public class CurrencyDataInitializer implements CommandLineRunner {
 
     private final CurrencyRepository currencyRepository;
     private final FixerRestClient fixerRestClient;
+    private final CurrencyRegistry currencyRegistry;
+    private final TransactionTemplate transactionTemplate;
 
-    public CurrencyDataInitializer(CurrencyRepository currencyRepository, FixerRestClient fixerRestClient) {
+    public CurrencyDataInitializer(CurrencyRepository currencyRepository,
+                                   FixerRestClient fixerRestClient,
+                                   CurrencyRegistry currencyRegistry,
+                                   PlatformTransactionManager transactionManager) {
         this.currencyRepository = currencyRepository;
         this.fixerRestClient = fixerRestClient;
+        this.currencyRegistry = currencyRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
@@ -34,29 +55,104 @@ public class CurrencyDataInitializer implements CommandLineRunner {
 
         try {
             Map<String, String> symbols = fixerRestClient.getSupportedSymbols();
-
-            int newCurrenciesCount = 0;
-            for (Map.Entry<String, String> entry : symbols.entrySet()) {
-                String code = entry.getKey();
-                String name = entry.getValue();
-
-                if (!currencyRepository.existsById(code)) {
-                    Currency currency = new Currency(code, name, true); // Assume all are active by default
-                    currencyRepository.save(currency);
-                    newCurrenciesCount++;
-                }
+            if (symbols == null || symbols.isEmpty()) {
+                // Applying an empty list would deactivate every currency
+                logger.warn("Fixer API returned no currency symbols. Keeping the existing currency data.");
+                return;
             }
 
-            if (newCurrenciesCount > 0) {
-                logger.info("Successfully initialized {} new currencies.", newCurrenciesCount);
+            long start = System.nanoTime();
+            CurrencyDiff diff = transactionTemplate.execute(status -> synchronize(symbols));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            if (diff.isEmpty()) {
+                logger.info("Currency data is already up-to-date ({} ms).", elapsedMillis);
             } else {
-                logger.info("Currency data is already up-to-date. No new currencies were added.");
+                currencyRegistry.reload();
+                logger.info("Synchronized currency data in {} ms: {} added {}, {} renamed {}, {} deactivated {}, "
+                                + "{} reactivated {}.",
+                        elapsedMillis,
+                        diff.getInserted().size(), diff.getInserted().keySet(),
+                        diff.getRenamed().size(), diff.getRenamed().keySet(),
+                        diff.getDeactivated().size(), diff.getDeactivated(),
+                        diff.getReactivated().size(), diff.getReactivated());
             }
 
         } catch (Exception e) {
             logger.error("Failed to initialize currency data from Fixer API. The application will continue, but some currencies may be missing.", e);
+        } finally {
+            logger.info("Currency data initialization process finished.");
+        }
+    }
+
+    /**
+     * Applies the difference between the stored currencies and the symbols. Must run inside a transaction:
+     * renames and deactivations are changes to the loaded entities, written as batched updates on commit.
+     */
+    private CurrencyDiff synchronize(Map<String, String> symbols) {
+        List<Currency> existing = currencyRepository.findAll();
+        CurrencyDiff diff = CurrencyDiff.between(existing, symbols);
+
+        for (Currency currency : existing) {
+            String newName = diff.getRenamed().get(currency.getCode());
+            if (newName != null) {
+                currency.setName(newName);
+            }
+            if (diff.getDeactivated().contains(currency.getCode())) {
+                currency.setActive(false);
+                currency.setDeactivatedBySync(true);
+            }
+            if (diff.getReactivated().contains(currency.getCode())) {
+                currency.setActive(true);
+                currency.setDeactivatedBySync(false);
+            }
         }
 
-        logger.info("Currency data initialization process finished.");
+        List<Currency> inserts = new ArrayList<>(diff.getInserted().size());
+        diff.getInserted().forEach((code, name) -> inserts.add(new Currency(code, name, true)));
+        currencyRepository.insertAll(inserts);
+        return diff;
+    }
+
+    /**
+     * Changes that bring the stored currencies in line with Fixer's symbols, each sorted by code.
+     */
+    @Value
+    static class CurrencyDiff {
+        /** Code -> name of currencies to add as active. */
+        Map<String, String> inserted;
+        /** Code -> new name of stored currencies whose name changed. */
+        Map<String, String> renamed;
+        /** Codes of active currencies that Fixer no longer lists. */
+        Set<String> deactivated;
+        /** Codes of currencies this sync deactivated earlier that Fixer lists again. */
+        Set<String> reactivated;
+
+        static CurrencyDiff between(List<Currency> existing, Map<String, String> symbols) {
+            Map<String, String> inserted = new TreeMap<>(symbols);
+            Map<String, String> renamed = new TreeMap<>();
+            Set<String> deactivated = new TreeSet<>();
+            Set<String> reactivated = new TreeSet<>();
+            for (Currency currency : existing) {
+                String name = inserted.remove(currency.getCode());
+                if (name == null) {
+                    if (currency.isActive()) {
+                        deactivated.add(currency.getCode());
+                    }
+                    continue;
+                }
+                if (!name.equals(currency.getName())) {
+                    renamed.put(currency.getCode(), name);
+                }
+                if (!currency.isActive() && currency.isDeactivatedBySync()) {
+                    reactivated.add(currency.getCode());
+                }
+            }
+            return new CurrencyDiff(inserted, renamed, deactivated, reactivated);
+        }
+
+        boolean isEmpty() {
+            return inserted.isEmpty() && renamed.isEmpty() && deactivated.isEmpty() && reactivated.isEmpty();
+        }
     }
 }
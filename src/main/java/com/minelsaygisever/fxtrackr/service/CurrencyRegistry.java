@@ -0,0 +1,95 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.Currency;
+import com.minelsaygisever.fxtrackr.domain.CurrencyCodes;
+import com.minelsaygisever.fxtrackr.repository.CurrencyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * In-memory registry of the active currencies from the CURRENCY table.
+ * Membership is kept as a 26³-bit set indexed by the packed currency code, so checking a code
+ * is a single array read with no database access. The canonical code string of every active
+ * currency is kept alongside, so normalized codes are shared instances rather than new strings
+ * per request or bulk row. Both are rebuilt and swapped on
+ * {@link #reload()}, which runs at startup, after the currency data changes and on
+ * {@code currency.registry.refresh-cron}.
+ */
+@Slf4j
+@Service
+public class CurrencyRegistry {
+
+    private static final int WORDS = (CurrencyCodes.CODE_SPACE + 63) >>> 6;
+
+    private final CurrencyRepository currencyRepository;
+
+    private volatile long[] activeBits = new long[WORDS];
+    private volatile String[] canonicalCodes = new String[CurrencyCodes.CODE_SPACE];
+    private volatile int activeCount;
+
+    public CurrencyRegistry(CurrencyRepository currencyRepository) {
+        this.currencyRepository = currencyRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * Reloads the active currencies from the database and swaps them in atomically.
+     */
+    @Scheduled(cron = "${currency.registry.refresh-cron}")
+    public void reload() {
+        List<Currency> currencies = currencyRepository.findAllByIsActiveTrue();
+        long[] bits = new long[WORDS];
+        String[] codes = new String[CurrencyCodes.CODE_SPACE];
+        int count = 0;
+        for (Currency currency : currencies) {
+            int packed = CurrencyCodes.pack(currency.getCode());
+            if (packed == CurrencyCodes.INVALID) {
+                log.warn("Ignoring currency with malformed code '{}'.", currency.getCode());
+                continue;
+            }
+            bits[packed >>> 6] |= 1L << packed;
+            codes[packed] = currency.getCode();
+            count++;
+        }
+        this.canonicalCodes = codes;
+        this.activeBits = bits;
+        this.activeCount = count;
+        log.debug("Currency registry loaded with {} active currencies.", count);
+    }
+
+    /**
+     * Whether the given packed code (see {@link CurrencyCodes#pack(String)}) is an active currency.
+     */
+    public boolean isActive(int packedCode) {
+        if (packedCode < 0 || packedCode >= CurrencyCodes.CODE_SPACE) {
+            return false;
+        }
+        return (activeBits[packedCode >>> 6] & (1L << packedCode)) != 0;
+    }
+
+    /**
+     * Returns the shared canonical string of an active packed code, or null if the code is not active.
+     */
+    public String canonicalCode(int packedCode) {
+        if (packedCode < 0 || packedCode >= CurrencyCodes.CODE_SPACE) {
+            return null;
+        }
+        return canonicalCodes[packedCode];
+    }
+
+    public boolean isActive(String code) {
+        return isActive(CurrencyCodes.pack(code));
+    }
+
+    public int size() {
+        return activeCount;
+    }
+}
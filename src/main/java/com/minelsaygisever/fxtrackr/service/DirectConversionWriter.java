@@ -0,0 +1,23 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Commits every conversion in its own transaction on the calling thread.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "conversion.write-mode", havingValue = "direct", matchIfMissing = true)
+public class DirectConversionWriter implements ConversionWriter {
+
+    private final CurrencyConversionRepository currencyConversionRepository;
+
+    @Override
+    public CurrencyConversion write(CurrencyConversion conversion) {
+        return currencyConversionRepository.save(conversion);
+    }
+}
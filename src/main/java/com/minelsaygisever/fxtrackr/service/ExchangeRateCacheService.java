@@ -1,62 +1,252 @@
 package com.minelsaygisever.fxtrackr.service;
 
+import com.minelsaygisever.fxtrackr.domain.RateSnapshotCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
 
 /**
  * A dedicated service to interact with the Redis cache for exchange rates.
+ * Redis acts as the distribution and persistence layer shared by all instances;
+ * requests are served from the local snapshot held by {@link RateSnapshotService}.
+ * <p>
+ * Rates are stored as one binary value (see {@link RateSnapshotCodec}) read with a single GET.
+ * The older hash of string rates is still read when no binary value exists, and is written alongside it
+ * while {@code caching.redis.write-legacy-hash} is on, so instances on either format can run side by side.
+ * <p>
+ * Every write increments a shared version counter and announces the new version on {@link #RATES_CHANNEL},
+ * so that other instances can reload their local snapshot right away.
+ * <p>
+ * With leader election, only the refresh leader writes, through {@link #updateRates(Map, long)}: the write is
+ * one script that first checks the leader's fencing token, so a leader that lost its lease without noticing
+ * cannot overwrite rates written by its successor.
  */
 @Slf4j
 @Service
 public class ExchangeRateCacheService {
 
+    /**
+     * Pub/sub channel on which the version of every rates update is published.
+     */
+    public static final String RATES_CHANNEL = "exchange_rates:updates";
+
     private static final String RATES_CACHE_KEY = "exchange_rates:latest";
+    private static final String VERSION_KEY = "exchange_rates:version";
+    private static final String SNAPSHOT_KEY = "exchange_rates:snapshot";
+    private static final byte[] SNAPSHOT_CACHE_KEY = SNAPSHOT_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final String FENCE_KEY = "exchange_rates:fence";
+    private static final RedisScript<Long> FENCED_UPDATE =
+            RedisScript.of(new ClassPathResource("scripts/fenced-rates-update.lua"), Long.class);
+    private static final byte[] NO_SNAPSHOT = new byte[0];
 
     @Value("${caching.redis.ttl-minutes}")
     private long cacheTtlMinutes;
 
+    @Value("${caching.redis.write-legacy-hash}")
+    private boolean writeLegacyHash;
+
     private final RedisTemplate<String, Object> redisTemplate;
 
-    public ExchangeRateCacheService(RedisTemplate<String, Object> redisTemplate) {
+    private final Counter readHits;
+    private final Counter readMisses;
+    private final Counter readFailures;
+    private final Counter writeSuccesses;
+    private final Counter writeFailures;
+    private final Counter writeFenced;
+
+    public ExchangeRateCacheService(RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
+        this.readHits = redisCounter(meterRegistry, "fxtrackr.redis.rates.reads", "hit");
+        this.readMisses = redisCounter(meterRegistry, "fxtrackr.redis.rates.reads", "miss");
+        this.readFailures = redisCounter(meterRegistry, "fxtrackr.redis.rates.reads", "failure");
+        this.writeSuccesses = redisCounter(meterRegistry, "fxtrackr.redis.rates.writes", "success");
+        this.writeFailures = redisCounter(meterRegistry, "fxtrackr.redis.rates.writes", "failure");
+        this.writeFenced = redisCounter(meterRegistry, "fxtrackr.redis.rates.writes", "fenced");
+    }
+
+    private static Counter redisCounter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder(name)
+                .description("Exchange rate operations against Redis")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     /**
-     * Retrieves the entire map of exchange rates from the Redis cache.
-     * @return An Optional containing the map, or empty if cache is unavailable or empty.
+     * Retrieves the latest rates from the Redis cache, preferring the binary snapshot over the legacy hash.
+     * @return An Optional containing the rates, or empty if cache is unavailable or empty.
      */
-    public Optional<Map<Object, Object>> getRatesMap() {
+    public Optional<Map<String, BigDecimal>> getRates() {
         try {
-            Map<Object, Object> rates = redisTemplate.opsForHash().entries(RATES_CACHE_KEY);
-            if (rates.isEmpty()) {
-                return Optional.empty();
-            }
-            return Optional.of(rates);
-        } catch (RedisConnectionFailureException e) {
-            log.warn("Could not connect to Redis to get rates map.", e.getMessage());
+            Optional<Map<String, BigDecimal>> rates = readSnapshot().or(this::readLegacyHash);
+            (rates.isPresent() ? readHits : readMisses).increment();
+            return rates;
+        } catch (DataAccessException e) {
+            readFailures.increment();
+            log.warn("Could not read rates from Redis: {}", e.getMessage());
             return Optional.empty();
         }
     }
 
     /**
-     * Writes a map of exchange rates to the Redis cache.
+     * Writes a map of exchange rates to the Redis cache and announces the update to the other instances.
      * @param rates A map of currency codes to their rates.
+     * @return the shared version of this update, or 0 if Redis could not be updated.
+     */
+    public long updateRates(Map<String, BigDecimal> rates) {
+        try {
+            boolean snapshotWritten = writeSnapshot(rates);
+            if (writeLegacyHash || !snapshotWritten) {
+                redisTemplate.opsForHash().putAll(RATES_CACHE_KEY, rates);
+                redisTemplate.expire(RATES_CACHE_KEY, cacheTtlMinutes, TimeUnit.MINUTES);
+            }
+            Long version = redisTemplate.opsForValue().increment(VERSION_KEY);
+            redisTemplate.convertAndSend(RATES_CHANNEL, String.valueOf(version));
+            writeSuccesses.increment();
+            log.info("Successfully updated Redis cache to version {}. It will expire in {} minutes.", version, cacheTtlMinutes);
+            return version == null ? 0 : version;
+        } catch (DataAccessException e) {
+            writeFailures.increment();
+            log.warn("Could not update the Redis cache: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Writes the rates and announces them like {@link #updateRates(Map)}, but only if no refresh leader with a
+     * greater fencing token has written before; otherwise nothing is written.
+     * @param fencingToken the token granted with the caller's refresh leader lease
+     * @return the shared version of this update, or 0 if the token was superseded or Redis could not be updated.
+     */
+    public long updateRates(Map<String, BigDecimal> rates, long fencingToken) {
+        byte[] snapshot = encodeSnapshot(rates);
+        List<Object> args = new ArrayList<>(4 + 2 * rates.size());
+        args.add(utf8(String.valueOf(fencingToken)));
+        args.add(utf8(String.valueOf(TimeUnit.MINUTES.toMillis(cacheTtlMinutes))));
+        args.add(utf8(RATES_CHANNEL));
+        args.add(snapshot != null ? snapshot : NO_SNAPSHOT);
+        if (writeLegacyHash || snapshot == null) {
+            for (Map.Entry<String, BigDecimal> rate : rates.entrySet()) {
+                args.add(utf8(rate.getKey()));
+                args.add(utf8(rate.getValue().toString()));
+            }
+        }
+
+        try {
+            Long version = redisTemplate.execute(FENCED_UPDATE, RedisSerializer.byteArray(),
+                    new GenericToStringSerializer<>(Long.class),
+                    List.of(FENCE_KEY, SNAPSHOT_KEY, RATES_CACHE_KEY, VERSION_KEY), args.toArray());
+            if (version == null || version < 0) {
+                writeFenced.increment();
+                log.warn("Rates update with fencing token {} rejected: a newer refresh leader has written since.", fencingToken);
+                return 0;
+            }
+            writeSuccesses.increment();
+            log.info("Successfully updated Redis cache to version {} (fencing token {}).", version, fencingToken);
+            return version;
+        } catch (DataAccessException e) {
+            writeFailures.increment();
+            log.warn("Could not update the Redis cache: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the shared version of the latest rates update.
+     * @return the version, or empty if there has been no update yet or Redis is unavailable.
+     */
+    public OptionalLong getVersion() {
+        try {
+            Object version = redisTemplate.opsForValue().get(VERSION_KEY);
+            return version == null ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(version.toString()));
+        } catch (DataAccessException e) {
+            log.warn("Could not read the rates version from Redis: {}", e.getMessage());
+            return OptionalLong.empty();
+        }
+    }
+
+    private Optional<Map<String, BigDecimal>> readSnapshot() {
+        byte[] data = redisTemplate.execute(
+                (RedisCallback<byte[]>) connection -> connection.stringCommands().get(SNAPSHOT_CACHE_KEY));
+        if (data == null) {
+            return Optional.empty();
+        }
+        try {
+            RateSnapshotCodec.Decoded decoded = RateSnapshotCodec.decode(data);
+            log.debug("Read {} rates fetched at {} from the binary snapshot.", decoded.getRates().size(), decoded.getFetchedAt());
+            return decoded.getRates().isEmpty() ? Optional.empty() : Optional.of(decoded.getRates());
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring unreadable rate snapshot in Redis: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Map<String, BigDecimal>> readLegacyHash() {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(RATES_CACHE_KEY);
+        if (entries.isEmpty()) {
+            return Optional.empty();
+        }
+        log.debug("Read {} rates from the legacy hash.", entries.size());
+        return Optional.of(convertMapToBigDecimal(entries));
+    }
+
+    /**
+     * @return false if the rates cannot be represented in the binary format and only the hash should be written.
      */
-    public void updateRates(Map<String, BigDecimal> rates) {
+    private boolean writeSnapshot(Map<String, BigDecimal> rates) {
+        byte[] data = encodeSnapshot(rates);
+        if (data == null) {
+            return false;
+        }
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(
+                SNAPSHOT_CACHE_KEY, data,
+                Expiration.from(cacheTtlMinutes, TimeUnit.MINUTES),
+                RedisStringCommands.SetOption.UPSERT));
+        return true;
+    }
+
+    /**
+     * @return the binary snapshot, or null if the rates cannot be represented in the binary format.
+     */
+    private static byte[] encodeSnapshot(Map<String, BigDecimal> rates) {
         try {
-            redisTemplate.opsForHash().putAll(RATES_CACHE_KEY, rates);
-            redisTemplate.expire(RATES_CACHE_KEY, cacheTtlMinutes, TimeUnit.MINUTES);
-            log.info("Successfully updated Redis cache. It will expire in {} minutes.", cacheTtlMinutes);
-        } catch (RedisConnectionFailureException e) {
-            log.warn("Could not connect to Redis to update the cache.", e.getMessage());
+            return RateSnapshotCodec.encode(rates, Instant.now());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rates cannot be stored as a binary snapshot ({}); writing the hash only.", e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static Map<String, BigDecimal> convertMapToBigDecimal(Map<Object, Object> objectMap) {
+        Map<String, BigDecimal> resultMap = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : objectMap.entrySet()) {
+            resultMap.put(entry.getKey().toString(), new BigDecimal(entry.getValue().toString()));
         }
+        return resultMap;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,233 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for single conversions. Callers enqueue their conversion and block; one flusher thread
+ * collects whatever is queued, waiting at most {@code conversion.group-commit.max-delay-ms} for more,
+ * up to {@code conversion.group-commit.max-batch-size} entries, and inserts them in one batched transaction.
+ * Each caller is released only after the transaction holding its conversion has committed, so a returned
+ * transaction id is exactly as durable as with {@link DirectConversionWriter}, at one commit per batch.
+ * <p>
+ * If a batch fails, its conversions are retried one transaction each, so a single bad row cannot fail
+ * the other callers in its batch.
+ * <p>
+ * Callers wait at most {@code conversion.group-commit.max-wait-ms} to be queued and committed. Whatever ends the
+ * flusher, the conversions it has not committed are failed rather than left waiting.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "conversion.write-mode", havingValue = "group-commit")
+public class GroupCommitConversionWriter implements ConversionWriter {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final CurrencyConversionRepository currencyConversionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer commitTimer;
+    private final DistributionSummary batchSizes;
+
+    @Value("${conversion.group-commit.max-batch-size}")
+    private int maxBatchSize;
+
+    @Value("${conversion.group-commit.max-delay-ms}")
+    private long maxDelayMillis;
+
+    @Value("${conversion.group-commit.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${conversion.group-commit.max-wait-ms}")
+    private long maxWaitMillis;
+
+    private BlockingQueue<PendingConversion> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    public GroupCommitConversionWriter(CurrencyConversionRepository currencyConversionRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        this.currencyConversionRepository = currencyConversionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.commitTimer = Timer.builder("fxtrackr.conversion.group-commit")
+                .description("Commit time of one group-commit batch")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("fxtrackr.conversion.group-commit.batch.size")
+                .description("Conversions committed together in one group-commit batch")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::run, "conversion-group-commit");
+        flusher.start();
+        log.info("Group commit enabled (max batch {}, max delay {} ms).", maxBatchSize, maxDelayMillis);
+    }
+
+    /**
+     * Stops accepting conversions and lets the flusher commit everything already queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @Override
+    public CurrencyConversion write(CurrencyConversion conversion) {
+        if (!running) {
+            throw new IllegalStateException("Group commit writer is shut down.");
+        }
+        PendingConversion pending = new PendingConversion(conversion);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        try {
+            if (!queue.offer(pending, maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Group commit queue is full.");
+            }
+            // Raced stop(): take it back unless the flusher already has it, or nobody may ever complete it
+            if (!running && queue.remove(pending)) {
+                throw new IllegalStateException("Group commit writer is shut down.");
+            }
+            pending.committed.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit.", e);
+        } catch (TimeoutException e) {
+            // Still queued means it will not be committed; otherwise it is in a transaction whose outcome is unknown
+            queue.remove(pending);
+            throw new IllegalStateException("Timed out waiting for the group commit.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Group commit failed.", e.getCause());
+        }
+        return conversion;
+    }
+
+    private void run() {
+        List<PendingConversion> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingConversion first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                try {
+                    commit(batch);
+                } catch (RuntimeException e) {
+                    log.error("Unexpected failure in the group commit flusher.", e);
+                    fail(batch, e);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Interrupted, or killed by an Error: fail everything not committed so no caller waits for good
+            running = false;
+            IllegalStateException shutDown = new IllegalStateException("Group commit writer is shut down.");
+            fail(batch, shutDown);
+            for (PendingConversion pending = queue.poll(); pending != null; pending = queue.poll()) {
+                pending.committed.completeExceptionally(shutDown);
+            }
+        }
+    }
+
+    /**
+     * Takes everything already queued, then waits up to the max delay for more while the batch has room.
+     */
+    private void fill(List<PendingConversion> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingConversion next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    void commit(List<PendingConversion> batch) {
+        List<CurrencyConversion> conversions = new ArrayList<>(batch.size());
+        for (PendingConversion pending : batch) {
+            conversions.add(pending.conversion);
+        }
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> currencyConversionRepository.insertAll(conversions));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch, e);
+                return;
+            }
+            log.warn("Group commit of {} conversions failed ({}); retrying them one by one.", batch.size(), e.getMessage());
+            commitIndividually(batch);
+            return;
+        }
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        for (PendingConversion pending : batch) {
+            pending.committed.complete(null);
+        }
+    }
+
+    private void commitIndividually(List<PendingConversion> batch) {
+        for (PendingConversion pending : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> currencyConversionRepository.insertAll(List.of(pending.conversion)));
+                batchSizes.record(1);
+                pending.committed.complete(null);
+            } catch (RuntimeException e) {
+                pending.committed.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void fail(List<PendingConversion> batch, RuntimeException e) {
+        for (PendingConversion pending : batch) {
+            pending.committed.completeExceptionally(e);
+        }
+    }
+
+    static final class PendingConversion {
+        final CurrencyConversion conversion;
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+        PendingConversion(CurrencyConversion conversion) {
+            this.conversion = conversion;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Acknowledges conversions as soon as they are appended to a local {@link ConversionJournal}, decoupling
+ * {@code /convert} latency from the database. A background drainer copies journaled conversions to
+ * CURRENCY_CONVERSION in batches and checkpoints its position after each committed batch.
+ * <p>
+ * Durability of an acknowledged conversion depends on {@code conversion.journal.fsync}:
+ * <ul>
+ *   <li>{@code always}: flushed to disk before the caller returns; survives a machine crash</li>
+ *   <li>{@code interval}: flushed every {@code conversion.journal.fsync-interval-ms}; a process crash loses
+ *       nothing, a machine crash at most that interval</li>
+ *   <li>{@code never}: flushing is left to the operating system</li>
+ * </ul>
+ * On startup everything after the checkpoint is replayed. A batch committed just before a crash, but not
+ * yet checkpointed, is recognized by its ids and not inserted twice. Until a conversion is drained,
+ * {@link #findPending(String)} serves it to transaction id lookups.
+ * <p>
+ * The backlog is bounded by {@code conversion.journal.max-backlog}. Beyond it, while the drainer is behind or
+ * the database is down, conversions are written directly and fail with the database instead of piling up.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "conversion.write-mode", havingValue = "journal")
+public class JournalConversionWriter implements ConversionWriter {
+
+    enum FsyncPolicy { ALWAYS, INTERVAL, NEVER }
+
+    private final CurrencyConversionRepository currencyConversionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter drainedCounter;
+    private final Counter overflowCounter;
+
+    private final Map<String, CurrencyConversion> undrained = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+
+    @Value("${conversion.journal.dir}")
+    private String journalDirectory;
+
+    @Value("${conversion.journal.segment-records}")
+    private int segmentRecords;
+
+    @Value("${conversion.journal.fsync}")
+    private String fsync;
+
+    @Value("${conversion.journal.fsync-interval-ms}")
+    private long fsyncIntervalMillis;
+
+    @Value("${conversion.journal.drain-interval-ms}")
+    private long drainIntervalMillis;
+
+    @Value("${conversion.journal.drain-batch-size}")
+    private int drainBatchSize;
+
+    @Value("${conversion.journal.max-backlog}")
+    private long maxBacklog;
+
+    private FsyncPolicy fsyncPolicy;
+    private ConversionJournal journal;
+    private ThreadPoolTaskScheduler scheduler;
+
+    public JournalConversionWriter(CurrencyConversionRepository currencyConversionRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.currencyConversionRepository = currencyConversionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.drainedCounter = Counter.builder("fxtrackr.conversion.journal.drained")
+                .description("Journaled conversions copied to the database")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("fxtrackr.conversion.journal.overflow")
+                .description("Conversions written directly because the journal backlog was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        recover();
+
+        Gauge.builder("fxtrackr.conversion.journal.backlog", journal, j -> j.getWritePosition() - j.getDrainPosition())
+                .description("Journaled conversions not yet copied to the database")
+                .register(meterRegistry);
+
+        // Not exposed as a bean: a context-wide TaskScheduler would replace the one @Scheduled methods use
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("conversion-journal-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::drain, Duration.ofMillis(drainIntervalMillis));
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            scheduler.scheduleWithFixedDelay(this::force, Duration.ofMillis(fsyncIntervalMillis));
+        }
+        log.info("Conversion journal opened in {} (fsync {}).", journalDirectory, fsyncPolicy);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        drain();
+        closeJournal();
+    }
+
+    /**
+     * Opens the journal and registers everything after the checkpoint as pending.
+     */
+    void recover() throws IOException {
+        fsyncPolicy = FsyncPolicy.valueOf(fsync.trim().toUpperCase());
+        journal = ConversionJournal.open(Paths.get(journalDirectory), segmentRecords);
+
+        long from = journal.getDrainPosition();
+        long to = journal.getWritePosition();
+        for (long sequence = from; sequence < to; sequence++) {
+            CurrencyConversion conversion = journal.read(sequence);
+            undrained.put(conversion.getId(), conversion);
+        }
+        if (to > from) {
+            log.info("Recovered {} journaled conversions not yet in the database.", to - from);
+        }
+    }
+
+    void closeJournal() {
+        synchronized (appendLock) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public CurrencyConversion write(CurrencyConversion conversion) {
+        if (conversion.getId() == null) {
+            conversion.setId(UUID.randomUUID().toString());
+        }
+        if (conversion.getTimestamp() == null) {
+            conversion.setTimestamp(Instant.now());
+        }
+        conversion.setConversionDay(CurrencyConversion.dayOf(conversion.getTimestamp()));
+
+        synchronized (appendLock) {
+            if (journal.getWritePosition() - journal.getDrainPosition() >= maxBacklog) {
+                overflowCounter.increment();
+                log.debug("Conversion journal backlog is full; writing {} directly.", conversion.getId());
+            } else if (append(conversion)) {
+                return conversion;
+            }
+        }
+        // The id is already assigned, so save() would merge and SELECT before inserting
+        transactionTemplate.executeWithoutResult(status -> currencyConversionRepository.insertAll(List.of(conversion)));
+        return conversion;
+    }
+
+    /**
+     * Appends under {@code appendLock}. Returns false if the conversion does not fit a journal record.
+     */
+    private boolean append(CurrencyConversion conversion) {
+        // Registered before the append so that the drainer can never remove it first
+        undrained.put(conversion.getId(), conversion);
+        try {
+            journal.append(conversion);
+        } catch (IllegalArgumentException e) {
+            undrained.remove(conversion.getId());
+            log.debug("Conversion {} does not fit a journal record; writing it directly.", conversion.getId());
+            return false;
+        } catch (IOException e) {
+            undrained.remove(conversion.getId());
+            throw new UncheckedIOException("Failed to append to the conversion journal.", e);
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            journal.force();
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<CurrencyConversion> findPending(String transactionId) {
+        return Optional.ofNullable(undrained.get(transactionId));
+    }
+
+    private void force() {
+        synchronized (appendLock) {
+            journal.force();
+        }
+    }
+
+    /**
+     * Copies everything journaled so far to the database, one batch per transaction.
+     * On failure the checkpoint stays put and the next run retries from there.
+     */
+    void drain() {
+        try {
+            long from = journal.getDrainPosition();
+            long end = journal.getWritePosition();
+            while (from < end) {
+                long to = Math.min(end, from + drainBatchSize);
+                List<CurrencyConversion> batch = new ArrayList<>((int) (to - from));
+                for (long sequence = from; sequence < to; sequence++) {
+                    batch.add(journal.read(sequence));
+                }
+                insert(batch);
+                journal.checkpoint(to);
+                for (CurrencyConversion conversion : batch) {
+                    undrained.remove(conversion.getId());
+                }
+                drainedCounter.increment(batch.size());
+                from = to;
+            }
+        } catch (Exception e) {
+            log.warn("Draining the conversion journal failed: {}. Retrying in {} ms.", e.getMessage(), drainIntervalMillis);
+        }
+    }
+
+    private void insert(List<CurrencyConversion> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> currencyConversionRepository.insertAll(batch));
+        } catch (DataIntegrityViolationException e) {
+            // Replaying a batch that was committed before a crash but not checkpointed
+            List<String> ids = new ArrayList<>(batch.size());
+            for (CurrencyConversion conversion : batch) {
+                ids.add(conversion.getId());
+            }
+            Set<String> existing = new HashSet<>(currencyConversionRepository.findExistingIds(ids));
+            List<CurrencyConversion> missing = new ArrayList<>(batch.size());
+            for (CurrencyConversion conversion : batch) {
+                if (!existing.contains(conversion.getId())) {
+                    missing.add(conversion);
+                }
+            }
+            if (!missing.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> currencyConversionRepository.insertAll(missing));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.RateSnapshot;
+import com.minelsaygisever.fxtrackr.domain.RateSnapshotCodec;
+import com.minelsaygisever.fxtrackr.domain.StoredRateSnapshot;
+import com.minelsaygisever.fxtrackr.exception.HistoricalRateNotFoundException;
+import com.minelsaygisever.fxtrackr.repository.RateSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps every set of rates fetched from the live API and answers "which rates were in effect at instant T".
+ * Recently used historical snapshots are kept decoded, with their cross-rate matrix, in an LRU of
+ * {@code rates.history.cache-size} entries, so repeated lookups in the same period do not hit the database.
+ */
+@Slf4j
+@Service
+public class RateHistoryService {
+
+    private final RateSnapshotRepository rateSnapshotRepository;
+
+    @Value("${rates.history.cache-size}")
+    private int cacheSize;
+
+    /**
+     * Snapshot id -> snapshot and the interval it is known to be in effect for, in access order. Guarded by itself.
+     */
+    private final LinkedHashMap<Long, CachedSnapshot> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedSnapshot> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private volatile Map<String, BigDecimal> lastRecorded;
+
+    public RateHistoryService(RateSnapshotRepository rateSnapshotRepository) {
+        this.rateSnapshotRepository = rateSnapshotRepository;
+    }
+
+    /**
+     * Stores a set of rates fetched from the live API. Consecutive identical sets are stored once.
+     * Failures are logged and never propagate to the fetch that produced the rates.
+     */
+    public void record(Map<String, BigDecimal> rates, Instant fetchedAt) {
+        if (rates.equals(lastRecorded)) {
+            return;
+        }
+        try {
+            byte[] encoded = RateSnapshotCodec.encode(rates, fetchedAt);
+            rateSnapshotRepository.save(new StoredRateSnapshot(null, fetchedAt, rates.size(), encoded));
+            lastRecorded = rates;
+        } catch (IllegalArgumentException | DataAccessException e) {
+            log.warn("Could not store the rates fetched at {} for history: {}", fetchedAt, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the rates in effect at the given instant.
+     * @throws HistoricalRateNotFoundException if no rates had been recorded yet at that instant.
+     */
+    public RateSnapshot getSnapshotAt(Instant at) {
+        RateSnapshot cached = findCached(at);
+        if (cached != null) {
+            return cached;
+        }
+
+        StoredRateSnapshot stored = rateSnapshotRepository.findFirstByFetchedAtLessThanEqualOrderByFetchedAtDesc(at)
+                .orElseThrow(() -> new HistoricalRateNotFoundException(
+                        "No exchange rates were recorded at or before " + at + "."));
+        // The latest snapshot is only known to be current up to now; another one may follow
+        Instant knownUntil = rateSnapshotRepository.findFirstByFetchedAtGreaterThanOrderByFetchedAtAsc(stored.getFetchedAt())
+                .map(StoredRateSnapshot::getFetchedAt)
+                .orElseGet(Instant::now);
+
+        RateSnapshot snapshot = new RateSnapshot(stored.getId(), stored.getFetchedAt(), System.currentTimeMillis(),
+                RateSnapshotCodec.decode(stored.getRates()).getRates());
+        synchronized (cache) {
+            cache.put(stored.getId(), new CachedSnapshot(snapshot, knownUntil));
+        }
+        return snapshot;
+    }
+
+    private RateSnapshot findCached(Instant at) {
+        synchronized (cache) {
+            for (Map.Entry<Long, CachedSnapshot> entry : cache.entrySet()) {
+                if (entry.getValue().covers(at)) {
+                    // re-read through get() to mark the entry as recently used
+                    return cache.get(entry.getKey()).snapshot;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class CachedSnapshot {
+        private final RateSnapshot snapshot;
+        private final Instant knownUntil;
+
+        CachedSnapshot(RateSnapshot snapshot, Instant knownUntil) {
+            this.snapshot = snapshot;
+            this.knownUntil = knownUntil;
+        }
+
+        boolean covers(Instant at) {
+            return !at.isBefore(snapshot.getFetchedAt()) && at.isBefore(knownUntil);
+        }
+    }
+}
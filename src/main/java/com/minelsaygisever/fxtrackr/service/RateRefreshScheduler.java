@@ -0,0 +1,143 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.RateSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proactively refreshes the exchange rates from the live API so that user requests never
+ * have to wait for Fixer. Each run is scheduled ahead of the Redis expiry
+ * ({@code caching.redis.ttl-minutes}), with a random jitter so that instances do not refresh in lockstep.
+ * Failed runs are retried with exponential backoff until one succeeds.
+ * <p>
+ * With leader election only the {@link RefreshLeaderLease} holder refreshes. The others check back every lease
+ * renewal interval, so a new leader refreshes right after it takes over.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "caching.scheduler.enabled", havingValue = "true", matchIfMissing = true)
+public class RateRefreshScheduler {
+
+    private final RateSnapshotService rateSnapshotService;
+    private final TaskScheduler taskScheduler;
+    private final ObjectProvider<RefreshLeaderLease> refreshLeaderLease;
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter retryCounter;
+
+    @Value("${caching.scheduler.fixed-rate}")
+    private long fixedRateMillis;
+
+    @Value("${caching.redis.ttl-minutes}")
+    private long cacheTtlMinutes;
+
+    @Value("${caching.scheduler.refresh-ahead-ms}")
+    private long refreshAheadMillis;
+
+    @Value("${caching.scheduler.jitter-ms}")
+    private long jitterMillis;
+
+    @Value("${caching.scheduler.retry.initial-backoff-ms}")
+    private long initialBackoffMillis;
+
+    @Value("${caching.scheduler.retry.max-backoff-ms}")
+    private long maxBackoffMillis;
+
+    private long currentBackoffMillis;
+
+    public RateRefreshScheduler(RateSnapshotService rateSnapshotService,
+                                TaskScheduler taskScheduler,
+                                ObjectProvider<RefreshLeaderLease> refreshLeaderLease,
+                                MeterRegistry meterRegistry) {
+        this.rateSnapshotService = rateSnapshotService;
+        this.taskScheduler = taskScheduler;
+        this.refreshLeaderLease = refreshLeaderLease;
+        this.successTimer = Timer.builder("fxtrackr.rates.refresh")
+                .description("Duration of scheduled rate refreshes")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failureTimer = Timer.builder("fxtrackr.rates.refresh")
+                .description("Duration of scheduled rate refreshes")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("fxtrackr.rates.refresh.retries")
+                .description("Number of rate refresh retries scheduled after a failure")
+                .register(meterRegistry);
+        Gauge.builder("fxtrackr.rates.snapshot.age", rateSnapshotService, RateRefreshScheduler::snapshotAgeSeconds)
+                .description("Age of the local rate snapshot")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Starting background rate refresher (fixed rate {} ms, jitter {} ms).", fixedRateMillis, jitterMillis);
+        schedule(Duration.ZERO);
+    }
+
+    void refresh() {
+        RefreshLeaderLease lease = refreshLeaderLease.getIfAvailable();
+        if (lease != null && !lease.isLeader()) {
+            log.debug("Not the rate refresh leader; skipping the refresh.");
+            currentBackoffMillis = 0;
+            schedule(Duration.ofMillis(lease.getRenewIntervalMillis()));
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            RateSnapshot snapshot = rateSnapshotService.refreshFromSource();
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            currentBackoffMillis = 0;
+            Duration next = nextRegularDelay();
+            log.info("Background rate refresh succeeded (snapshot version {}). Next refresh in {} s.",
+                    snapshot.getVersion(), next.toSeconds());
+            schedule(next);
+        } catch (Exception e) {
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            retryCounter.increment();
+            currentBackoffMillis = currentBackoffMillis == 0
+                    ? initialBackoffMillis
+                    : Math.min(currentBackoffMillis * 2, maxBackoffMillis);
+            log.warn("Background rate refresh failed: {}. Retrying in {} ms.", e.getMessage(), currentBackoffMillis);
+            schedule(Duration.ofMillis(currentBackoffMillis));
+        }
+    }
+
+    /**
+     * The regular delay is the configured fixed rate, capped so that the refresh lands
+     * {@code refresh-ahead-ms} before the Redis entry expires, minus a random jitter.
+     */
+    private Duration nextRegularDelay() {
+        long beforeExpiry = TimeUnit.MINUTES.toMillis(cacheTtlMinutes) - refreshAheadMillis;
+        long base = Math.max(Math.min(fixedRateMillis, beforeExpiry), 1_000);
+        long jitter = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+        return Duration.ofMillis(Math.max(base - jitter, 1_000));
+    }
+
+    private void schedule(Duration delay) {
+        taskScheduler.schedule(this::refresh, Instant.now().plus(delay));
+    }
+
+    private static double snapshotAgeSeconds(RateSnapshotService service) {
+        return service.peekSnapshot()
+                .map(snapshot -> (System.currentTimeMillis() - snapshot.getLoadedAtMillis()) / 1000.0)
+                .orElse(Double.NaN);
+    }
+}
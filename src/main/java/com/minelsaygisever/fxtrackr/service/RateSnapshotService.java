@@ -0,0 +1,258 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.client.FixerRestClient;
+import com.minelsaygisever.fxtrackr.domain.RateSnapshot;
+import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the in-process rate snapshot used by every conversion.
+ * The current snapshot is read with a single volatile load; Redis (via {@link ExchangeRateCacheService})
+ * is only consulted once the local copy is older than {@code caching.local.ttl-seconds},
+ * and the live API only when Redis has nothing either.
+ * Concurrent reloads and concurrent live API fetches are each coalesced into a single call.
+ * <p>
+ * An expired snapshot is not reloaded on the request thread: for up to {@code caching.local.max-stale-seconds}
+ * past its TTL it keeps being served while a background reload runs, so a slow or failing upstream never holds
+ * up requests that already have rates. Only without a snapshot, or with one older than that, do requests wait
+ * for the reload and see its failure.
+ * <p>
+ * When another instance refreshes the rates, it announces the new shared version through Redis
+ * (see {@link RateUpdateListener}) and this instance reloads from Redis straight away instead of
+ * waiting for its local copy to expire. Versions that are not newer than the last one seen are ignored.
+ * <p>
+ * With leader election ({@link RefreshLeaderLease}) only the leader writes rates it fetched to Redis, fenced by
+ * its token. A follower that has to fetch because Redis has nothing uses those rates locally only.
+ */
+@Slf4j
+@Service
+public class RateSnapshotService {
+
+    private final FixerRestClient fixerRestClient;
+    private final ExchangeRateCacheService exchangeRateCacheService;
+    private final RateHistoryService rateHistoryService;
+    private final ObjectProvider<RefreshLeaderLease> refreshLeaderLease;
+
+    @Value("${caching.local.ttl-seconds}")
+    private long localTtlSeconds;
+
+    @Value("${caching.local.max-stale-seconds}")
+    private long maxStaleSeconds;
+
+    private final AtomicReference<RateSnapshot> current = new AtomicReference<>();
+    private final SingleFlight<RateSnapshot> reloadFlight = new SingleFlight<>();
+    private final SingleFlight<RateSnapshot> sourceFlight = new SingleFlight<>();
+    private long lastVersion;
+    private final AtomicLong sourceVersion = new AtomicLong();
+    private final Counter staleServed;
+    private ThreadPoolTaskExecutor revalidator;
+
+    public RateSnapshotService(FixerRestClient fixerRestClient,
+                               ExchangeRateCacheService exchangeRateCacheService,
+                               RateHistoryService rateHistoryService,
+                               ObjectProvider<RefreshLeaderLease> refreshLeaderLease,
+                               MeterRegistry meterRegistry) {
+        this.fixerRestClient = fixerRestClient;
+        this.exchangeRateCacheService = exchangeRateCacheService;
+        this.rateHistoryService = rateHistoryService;
+        this.refreshLeaderLease = refreshLeaderLease;
+        FunctionCounter.builder("fxtrackr.fixer.fetch.coalesced", sourceFlight, SingleFlight::getCoalescedCount)
+                .description("Callers that shared an in-flight live API fetch instead of starting their own")
+                .register(meterRegistry);
+        FunctionCounter.builder("fxtrackr.rates.reload.coalesced", reloadFlight, SingleFlight::getCoalescedCount)
+                .description("Callers that shared an in-flight snapshot reload instead of starting their own")
+                .register(meterRegistry);
+        this.staleServed = Counter.builder("fxtrackr.rates.stale.served")
+                .description("Reads served from an expired snapshot while it was being reloaded")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // One background reload at a time; further requests while it runs are dropped, not queued
+        revalidator = new ThreadPoolTaskExecutor();
+        revalidator.setCorePoolSize(1);
+        revalidator.setMaxPoolSize(1);
+        revalidator.setQueueCapacity(0);
+        revalidator.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        revalidator.setThreadNamePrefix("rates-revalidate-");
+        revalidator.initialize();
+    }
+
+    @PreDestroy
+    public void stop() {
+        revalidator.shutdown();
+    }
+
+    /**
+     * Returns the current rate snapshot. An expired one is returned as is while it is reloaded in the background,
+     * as long as it is within the maximum staleness; check {@link #staleAgeSeconds(RateSnapshot)}.
+     * Without a usable snapshot the caller waits for the reload, sharing it with every other caller.
+     * @throws ExternalApiException if there is no usable snapshot and the rates cannot be loaded.
+     */
+    public RateSnapshot getSnapshot() {
+        RateSnapshot snapshot = current.get();
+        long now = System.currentTimeMillis();
+        if (snapshot != null && !snapshot.isExpired(now, localTtlMillis())) {
+            return snapshot;
+        }
+        if (snapshot != null && !snapshot.isExpired(now, localTtlMillis() + TimeUnit.SECONDS.toMillis(maxStaleSeconds))) {
+            staleServed.increment();
+            revalidateInBackground();
+            return snapshot;
+        }
+        return reloadFlight.execute(this::loadFromCacheOrSource);
+    }
+
+    /**
+     * Age in whole seconds of a snapshot that is past its local TTL, or null if it is still fresh (or null).
+     */
+    public Long staleAgeSeconds(RateSnapshot snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+        long ageMillis = System.currentTimeMillis() - snapshot.getLoadedAtMillis();
+        return ageMillis < localTtlMillis() ? null : TimeUnit.MILLISECONDS.toSeconds(ageMillis);
+    }
+
+    /**
+     * Returns the current snapshot without triggering a reload, even if it has expired.
+     */
+    public Optional<RateSnapshot> peekSnapshot() {
+        return Optional.ofNullable(current.get());
+    }
+
+    /**
+     * Fetches the latest rates from the live API, writes them to the distribution layer and the history,
+     * and publishes them locally. Callers arriving while a fetch is in flight share its outcome.
+     * @throws ExternalApiException if the API call fails or returns no rates.
+     */
+    public RateSnapshot refreshFromSource() {
+        return sourceFlight.execute(this::fetchFromSource);
+    }
+
+    private RateSnapshot fetchFromSource() {
+        Map<String, BigDecimal> liveRates = fixerRestClient.getLatestRates();
+        if (liveRates == null || liveRates.isEmpty()) {
+            throw new ExternalApiException("Fixer API returned no rates.");
+        }
+        Instant fetchedAt = Instant.now();
+        long version = writeToCache(liveRates);
+        RateSnapshot snapshot = publish(liveRates);
+        rateHistoryService.record(liveRates, fetchedAt);
+        sourceVersion.accumulateAndGet(version, Math::max);
+        return snapshot;
+    }
+
+    private long writeToCache(Map<String, BigDecimal> rates) {
+        RefreshLeaderLease lease = refreshLeaderLease.getIfAvailable();
+        if (lease == null) {
+            return exchangeRateCacheService.updateRates(rates);
+        }
+        OptionalLong token = lease.currentToken();
+        if (token.isEmpty()) {
+            log.info("Not the rate refresh leader; using the fetched rates locally without writing them to Redis.");
+            return 0;
+        }
+        return exchangeRateCacheService.updateRates(rates, token.getAsLong());
+    }
+
+    /**
+     * Reloads the local snapshot from Redis if the given shared version is newer than the last one seen.
+     * The version is only recorded once the reload succeeded, so a failed reload is retried on the next signal.
+     */
+    public void onSourceVersion(long version) {
+        if (version <= sourceVersion.get()) {
+            return;
+        }
+        Optional<Map<String, BigDecimal>> rates = exchangeRateCacheService.getRates();
+        if (rates.isEmpty()) {
+            log.warn("Rates version {} was announced but could not be read from the cache.", version);
+            return;
+        }
+        publish(rates.get());
+        sourceVersion.accumulateAndGet(version, Math::max);
+        log.info("Reloaded rates for shared version {}.", version);
+    }
+
+    /**
+     * The newest shared rates version this instance has loaded, or 0 if none.
+     */
+    public long getSourceVersion() {
+        return sourceVersion.get();
+    }
+
+    /**
+     * Builds a new snapshot from the given rates and swaps it in atomically.
+     * If the rates are identical to the current ones the version is kept and only the load time is refreshed.
+     */
+    public synchronized RateSnapshot publish(Map<String, BigDecimal> rates) {
+        long now = System.currentTimeMillis();
+        RateSnapshot previous = current.get();
+        RateSnapshot next;
+        if (previous != null && previous.getRates().equals(rates)) {
+            next = previous.reloadedAt(now);
+        } else {
+            next = new RateSnapshot(++lastVersion, Instant.ofEpochMilli(now), now, rates);
+            log.info("Published rate snapshot version {} with {} currencies.", next.getVersion(), rates.size());
+        }
+        current.set(next);
+        return next;
+    }
+
+    /**
+     * Drops the local snapshot so that the next read goes back to the distribution layer.
+     */
+    public void invalidate() {
+        current.set(null);
+    }
+
+    private void revalidateInBackground() {
+        if (reloadFlight.isInFlight()) {
+            return;
+        }
+        revalidator.execute(() -> {
+            try {
+                reloadFlight.execute(this::loadFromCacheOrSource);
+            } catch (RuntimeException e) {
+                log.warn("Background reload of expired rates failed: {}. The previous snapshot stays in use.", e.getMessage());
+            }
+        });
+    }
+
+    private RateSnapshot loadFromCacheOrSource() {
+        RateSnapshot latest = current.get();
+        if (latest != null && !latest.isExpired(System.currentTimeMillis(), localTtlMillis())) {
+            return latest;
+        }
+        return exchangeRateCacheService.getRates()
+                .map(this::publish)
+                .orElseGet(() -> {
+                    log.warn("Rates not found in cache. Fetching from live API for the operation.");
+                    return refreshFromSource();
+                });
+    }
+
+    private long localTtlMillis() {
+        return TimeUnit.SECONDS.toMillis(localTtlSeconds);
+    }
+}
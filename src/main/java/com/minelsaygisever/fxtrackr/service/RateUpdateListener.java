@@ -0,0 +1,46 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps the local rate snapshot in step with the other instances.
+ * Subscribed to {@link ExchangeRateCacheService#RATES_CHANNEL}; every announced version is handed to
+ * {@link RateSnapshotService#onSourceVersion(long)}. Messages published while the subscription is down
+ * are lost, so the shared version is also polled every {@code caching.pubsub.poll-interval-ms}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "caching.pubsub.enabled", havingValue = "true", matchIfMissing = true)
+public class RateUpdateListener implements MessageListener {
+
+    private final RateSnapshotService rateSnapshotService;
+    private final ExchangeRateCacheService exchangeRateCacheService;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        long version;
+        try {
+            version = Long.parseLong(body.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed rates update message '{}'.", body);
+            return;
+        }
+        log.debug("Received rates update for version {}.", version);
+        rateSnapshotService.onSourceVersion(version);
+    }
+
+    @Scheduled(fixedDelayString = "${caching.pubsub.poll-interval-ms}")
+    public void poll() {
+        exchangeRateCacheService.getVersion().ifPresent(rateSnapshotService::onSourceVersion);
+    }
+}
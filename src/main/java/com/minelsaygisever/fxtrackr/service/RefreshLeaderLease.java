@@ -0,0 +1,132 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects the one instance that refreshes rates from Fixer and writes them to Redis; every other instance only
+ * reads. Leadership is a lease in Redis: the holder renews it every {@code caching.leader.renew-interval-ms},
+ * and once it is not renewed for {@code caching.leader.lease-ms} any other instance can take it over. A new holder
+ * gets a strictly greater fencing token, which it passes with each write
+ * (see {@link ExchangeRateCacheService#updateRates(java.util.Map, long)}).
+ * <p>
+ * This instance considers itself leader only until its lease could have expired in Redis, counted from before
+ * the last successful renewal, so it stops acting as leader on its own when Redis becomes unreachable.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "caching.leader.enabled", havingValue = "true", matchIfMissing = true)
+public class RefreshLeaderLease {
+
+    private static final String LEASE_KEY = "exchange_rates:refresh_leader";
+    private static final String TOKEN_KEY = "exchange_rates:refresh_leader:token";
+    private static final RedisScript<Long> ACQUIRE =
+            RedisScript.of(new ClassPathResource("scripts/lease-acquire.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE =
+            RedisScript.of(new ClassPathResource("scripts/lease-release.lua"), Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${caching.leader.lease-ms}")
+    private long leaseMillis;
+
+    @Value("${caching.leader.renew-interval-ms}")
+    private long renewIntervalMillis;
+
+    private volatile long token;
+    private volatile long validUntilNanos;
+    private ThreadPoolTaskScheduler scheduler;
+
+    public RefreshLeaderLease(RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        Gauge.builder("fxtrackr.rates.refresh.leader", this, lease -> lease.isLeader() ? 1 : 0)
+                .description("Whether this instance holds the rate refresh leader lease")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (renewIntervalMillis >= leaseMillis) {
+            throw new IllegalStateException("caching.leader.renew-interval-ms must be shorter than caching.leader.lease-ms");
+        }
+        // Not exposed as a bean: a context-wide TaskScheduler would replace the one @Scheduled methods use
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("refresh-leader-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::renew, Duration.ofMillis(renewIntervalMillis));
+        log.info("Competing for the rate refresh leadership as {}.", instanceId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        if (token == 0) {
+            return;
+        }
+        token = 0;
+        try {
+            redisTemplate.execute(RELEASE, List.of(LEASE_KEY), instanceId);
+            log.info("Released the rate refresh leadership.");
+        } catch (DataAccessException e) {
+            log.warn("Could not release the rate refresh leadership; it lapses in {} ms.", leaseMillis);
+        }
+    }
+
+    /**
+     * The fencing token of this instance's lease, or empty if it is not the leader.
+     */
+    public OptionalLong currentToken() {
+        long current = token;
+        return current > 0 && System.nanoTime() - validUntilNanos < 0 ? OptionalLong.of(current) : OptionalLong.empty();
+    }
+
+    public boolean isLeader() {
+        return currentToken().isPresent();
+    }
+
+    /**
+     * How often the lease is renewed, and so how often a follower finds out that it has become leader.
+     */
+    public long getRenewIntervalMillis() {
+        return renewIntervalMillis;
+    }
+
+    void renew() {
+        long attemptedAt = System.nanoTime();
+        try {
+            Long granted = redisTemplate.execute(ACQUIRE, List.of(LEASE_KEY, TOKEN_KEY), instanceId, leaseMillis);
+            if (granted != null && granted > 0) {
+                if (granted != token) {
+                    log.info("Became the rate refresh leader with fencing token {}.", granted);
+                }
+                validUntilNanos = attemptedAt + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+                token = granted;
+            } else if (token != 0) {
+                token = 0;
+                log.warn("Lost the rate refresh leadership to another instance.");
+            }
+        } catch (DataAccessException e) {
+            // Keep acting on the current lease until it could have expired; another instance may take it over then
+            log.warn("Could not renew the rate refresh leader lease: {}", e.getMessage());
+        }
+    }
+}
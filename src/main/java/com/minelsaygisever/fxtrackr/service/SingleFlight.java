@@ -0,0 +1,69 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent executions of the same operation.
+ * The first caller runs the loader; every caller arriving while it is in flight waits for
+ * and shares its result, or its failure, instead of starting another execution.
+ *
+ * @param <T> the result type of the operation
+ */
+public final class SingleFlight<T> {
+
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    public T execute(Supplier<T> loader) {
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.compareAndExchange(null, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.compareAndSet(mine, null);
+        }
+    }
+
+    /**
+     * Whether an execution is currently running.
+     */
+    public boolean isInFlight() {
+        return inFlight.get() != null;
+    }
+
+    /**
+     * Total number of callers that joined an execution started by another caller.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.minelsaygisever.fxtrackr.validation;
 
+import com.minelsaygisever.fxtrackr.domain.CurrencyCodes;
 import com.minelsaygisever.fxtrackr.exception.UnsupportedCurrencyException;
 import com.minelsaygisever.fxtrackr.exception.InvalidAmountException;
 import com.minelsaygisever.fxtrackr.exception.InvalidCsvHeaderException;
-import com.minelsaygisever.fxtrackr.repository.CurrencyRepository;
+import com.minelsaygisever.fxtrackr.service.CurrencyRegistry;
 import org.apache.commons.csv.CSVParser;
 import org.springframework.stereotype.Component;
 
@@ -18,32 +19,36 @@ import java.util.Set;
 public class ValidationUtil {
     private static final List<String> CSV_HEADERS = List.of("amount","from","to");
 
-    private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
 
-    public ValidationUtil(CurrencyRepository currencyRepository) {
-        this.currencyRepository = currencyRepository;
+    public ValidationUtil(CurrencyRegistry currencyRegistry) {
+        this.currencyRegistry = currencyRegistry;
     }
 
     /**
      * Normalize and validate a currency code:
      * - Must not be null or blank
      * - Must be three letters (A–Z)
+     * - Must be an active currency in the {@link CurrencyRegistry}
+     * Returns the registry's shared instance of the code, so no string is allocated.
      */
     public String validateAndNormalizeCurrencyCode(String code) {
         if (code == null || code.trim().isEmpty()) {
             throw new UnsupportedCurrencyException("Currency code is required");
         }
-        String normalized = code.trim().toUpperCase(Locale.ROOT);
-        if (!normalized.matches("^[A-Z]{3}$")) {
-            throw new UnsupportedCurrencyException("Invalid currency code format: " + normalized);
+        int packed = CurrencyCodes.packNormalized(code);
+        if (packed == CurrencyCodes.INVALID) {
+            throw new UnsupportedCurrencyException(
+                    "Invalid currency code format: " + code.trim().toUpperCase(Locale.ROOT));
         }
 
-        currencyRepository.findByCodeAndIsActiveTrue(normalized)
-                .orElseThrow(() -> new UnsupportedCurrencyException(
-                        "The currency '" + normalized + "' is not supported or is inactive."
-                ));
+        if (!currencyRegistry.isActive(packed)) {
+            throw new UnsupportedCurrencyException(
+                    "The currency '" + CurrencyCodes.unpack(packed) + "' is not supported or is inactive.");
+        }
 
-        return normalized;
+        String canonical = currencyRegistry.canonicalCode(packed);
+        return canonical != null ? canonical : CurrencyCodes.unpack(packed);
     }
 
     /**
@@ -0,0 +1,25 @@
+CREATE TABLE CURRENCY (
+    CODE      VARCHAR(3)   NOT NULL,
+    NAME      VARCHAR(255) NOT NULL,
+    IS_ACTIVE BOOLEAN      NOT NULL,
+    CONSTRAINT PK_CURRENCY PRIMARY KEY (CODE)
+);
+
+CREATE TABLE CURRENCY_CONVERSION (
+    ID               VARCHAR(36)    NOT NULL,
+    SOURCE_CURRENCY  VARCHAR(3)     NOT NULL,
+    TARGET_CURRENCY  VARCHAR(3)     NOT NULL,
+    SOURCE_AMOUNT    NUMERIC(19, 6) NOT NULL,
+    CONVERTED_AMOUNT NUMERIC(19, 6) NOT NULL,
+    EXCHANGE_RATE    NUMERIC(19, 6) NOT NULL,
+    TIMESTAMP        TIMESTAMP      NOT NULL,
+    CONSTRAINT PK_CURRENCY_CONVERSION PRIMARY KEY (ID)
+);
+
+CREATE TABLE RATE_SNAPSHOT (
+    ID             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    FETCHED_AT     TIMESTAMP         NOT NULL,
+    CURRENCY_COUNT INTEGER           NOT NULL,
+    RATES          VARBINARY(65535)  NOT NULL,
+    CONSTRAINT PK_RATE_SNAPSHOT PRIMARY KEY (ID)
+);
@@ -0,0 +1,8 @@
+-- History search by day and cursor paging: range scan on TIMESTAMP, ID breaks ties in the keyset order
+CREATE INDEX IDX_CURRENCY_CONVERSION_TIMESTAMP_ID ON CURRENCY_CONVERSION (TIMESTAMP, ID);
+
+-- Conversions of one currency pair over a time range
+CREATE INDEX IDX_CURRENCY_CONVERSION_PAIR_TIMESTAMP ON CURRENCY_CONVERSION (SOURCE_CURRENCY, TARGET_CURRENCY, TIMESTAMP);
+
+-- Point-in-time rate lookups: latest snapshot at or before an instant, and the one after it
+CREATE INDEX IDX_RATE_SNAPSHOT_FETCHED_AT ON RATE_SNAPSHOT (FETCHED_AT);
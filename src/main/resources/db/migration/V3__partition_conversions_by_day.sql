@@ -0,0 +1,12 @@
+-- CONVERSION_DAY is the UTC day of TIMESTAMP as days since 1970-01-01 and acts as the partition key:
+-- day-filtered reads and the retention purge address a single day through the leading index column.
+ALTER TABLE CURRENCY_CONVERSION ADD COLUMN CONVERSION_DAY INTEGER;
+
+UPDATE CURRENCY_CONVERSION c SET CONVERSION_DAY = DATEDIFF(DAY, DATE '1970-01-01', c.TIMESTAMP);
+
+ALTER TABLE CURRENCY_CONVERSION ALTER COLUMN CONVERSION_DAY SET NOT NULL;
+
+-- Superseded: every day search and cursor page now also filters on CONVERSION_DAY
+DROP INDEX IDX_CURRENCY_CONVERSION_TIMESTAMP_ID;
+
+CREATE INDEX IDX_CURRENCY_CONVERSION_DAY_TIMESTAMP_ID ON CURRENCY_CONVERSION (CONVERSION_DAY, TIMESTAMP, ID);
@@ -0,0 +1,3 @@
+-- Set when the currency bootstrap deactivated a currency because Fixer stopped listing it, so that it can be
+-- reactivated once Fixer lists it again. Currencies deactivated by hand keep FALSE and stay inactive.
+ALTER TABLE CURRENCY ADD COLUMN DEACTIVATED_BY_SYNC BOOLEAN DEFAULT FALSE NOT NULL;
@@ -0,0 +1,24 @@
+-- Writes the latest rates on behalf of a refresh leader, unless a leader with a newer fencing token already has.
+-- KEYS[1]: highest fencing token seen, KEYS[2]: binary snapshot, KEYS[3]: legacy rates hash, KEYS[4]: version counter
+-- ARGV[1]: fencing token, ARGV[2]: TTL in ms, ARGV[3]: channel announcing new versions,
+-- ARGV[4]: binary snapshot (empty to skip), ARGV[5..]: code, rate pairs for the legacy hash (none to skip)
+-- Returns the new shared version, or -1 if the token has been superseded and nothing was written.
+
+local token = tonumber(ARGV[1])
+local fence = tonumber(redis.call('GET', KEYS[1]) or '0')
+if token < fence then
+    return -1
+end
+redis.call('SET', KEYS[1], ARGV[1])
+
+if #ARGV[4] > 0 then
+    redis.call('SET', KEYS[2], ARGV[4], 'PX', ARGV[2])
+end
+if #ARGV > 4 then
+    redis.call('HSET', KEYS[3], unpack(ARGV, 5))
+    redis.call('PEXPIRE', KEYS[3], ARGV[2])
+end
+
+local version = redis.call('INCR', KEYS[4])
+redis.call('PUBLISH', ARGV[3], tostring(version))
+return version
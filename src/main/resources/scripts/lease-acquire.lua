@@ -0,0 +1,19 @@
+-- Acquires or renews the rate refresh leader lease.
+-- KEYS[1]: lease hash {holder, token}, KEYS[2]: fencing token counter
+-- ARGV[1]: id of the calling instance, ARGV[2]: lease duration in ms
+-- Returns the holder's fencing token if the caller holds the lease afterwards, otherwise 0.
+-- A new holder gets a new, strictly greater token; a renewal keeps the token it was granted.
+
+local holder = redis.call('HGET', KEYS[1], 'holder')
+if holder == ARGV[1] then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return tonumber(redis.call('HGET', KEYS[1], 'token'))
+end
+if holder then
+    return 0
+end
+
+local token = redis.call('INCR', KEYS[2])
+redis.call('HSET', KEYS[1], 'holder', ARGV[1], 'token', token)
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return token
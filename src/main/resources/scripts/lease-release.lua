@@ -0,0 +1,8 @@
+-- Releases the rate refresh leader lease if the caller still holds it.
+-- KEYS[1]: lease hash {holder, token}, ARGV[1]: id of the calling instance
+-- Returns 1 if the lease was released, otherwise 0.
+
+if redis.call('HGET', KEYS[1], 'holder') == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,35 @@
+-- Cluster-wide token bucket shared by every instance calling the Fixer API.
+-- KEYS[1]: bucket hash {tokens, ts}
+-- ARGV[1]: refill rate in permits per second, ARGV[2]: bucket capacity, ARGV[3]: longest wait to grant, in ms
+-- Returns how many ms the caller must wait before using its permit, or -1 if that would exceed ARGV[3].
+-- A granted permit is taken immediately, so tokens may go negative: later callers queue up behind it.
+
+-- TIME is non-deterministic; replicate the effects instead of the script (the default from Redis 5 on)
+redis.replicate_commands()
+
+local rate = tonumber(ARGV[1]) / 1000
+local capacity = tonumber(ARGV[2])
+local max_wait = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(state[1]) or capacity
+local ts = tonumber(state[2]) or now
+
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+
+local wait = 0
+if tokens < 1 then
+    wait = math.ceil((1 - tokens) / rate)
+end
+if wait > max_wait then
+    return -1
+end
+
+tokens = tokens - 1
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+-- Once the bucket would be full again the key carries no information
+redis.call('PEXPIRE', KEYS[1], math.ceil((capacity - tokens) / rate) + 1000)
+return wait
@@ -0,0 +1,56 @@
+package com.minelsaygisever.fxtrackr.client;
+
+import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FixerRateLimiter.
+ */
+class FixerRateLimiterTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FixerRateLimiter limiter = new FixerRateLimiter(redisTemplate, meterRegistry, 0.4, 1, 100, 1000);
+
+    @Test
+    @DisplayName("permits come from the shared bucket, and a turn beyond the maximum wait is denied")
+    void testSharedBucket() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any())).thenReturn(0L, -1L);
+
+        limiter.acquire("latest");
+        assertThrows(ExternalApiException.class, () -> limiter.acquire("latest"));
+
+        assertEquals(1, permits("redis", "granted"));
+        assertEquals(1, permits("redis", "denied"));
+    }
+
+    @Test
+    @DisplayName("while Redis is unreachable the local limiter grants permits")
+    void testLocalFallback() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        limiter.acquire("latest");
+
+        assertEquals(1, permits("local", "granted"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("fixer:rate_limit")), any(), any(), any());
+    }
+
+    private double permits(String limiterName, String result) {
+        return meterRegistry.counter("fxtrackr.fixer.ratelimiter.permits", "limiter", limiterName, "result", result).count();
+    }
+}
@@ -0,0 +1,56 @@
+package com.minelsaygisever.fxtrackr.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FixerRatesParser.
+ */
+class FixerRatesParserTest {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    @DisplayName("rates are read exactly and unrelated fields are skipped")
+    void testParseRates() throws IOException {
+        Map<String, BigDecimal> rates = FixerRatesParser.parse(body("{\"success\":true,\"timestamp\":1519296206,"
+                + "\"base\":\"EUR\",\"date\":\"2025-04-30\",\"meta\":{\"source\":[1,2]},"
+                + "\"rates\":{\"EUR\":1,\"USD\":1.083921,\"JPY\":155.123456789}}"), jsonFactory);
+
+        assertEquals(3, rates.size());
+        assertEquals(new BigDecimal("1"), rates.get("EUR"));
+        assertEquals(new BigDecimal("1.083921"), rates.get("USD"));
+        assertEquals(new BigDecimal("155.123456789"), rates.get("JPY"));
+    }
+
+    @Test
+    @DisplayName("an error response is reported with Fixer's error info")
+    void testParseErrorResponse() {
+        ExternalApiException exception = assertThrows(ExternalApiException.class, () -> FixerRatesParser.parse(
+                body("{\"success\":false,\"error\":{\"code\":101,\"info\":\"Invalid access key.\"}}"), jsonFactory));
+
+        assertTrue(exception.getMessage().contains("Invalid access key."));
+    }
+
+    @Test
+    @DisplayName("a successful response without rates is rejected")
+    void testParseMissingRates() {
+        assertThrows(ExternalApiException.class,
+                () -> FixerRatesParser.parse(body("{\"success\":true,\"base\":\"EUR\"}"), jsonFactory));
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,143 @@
+package com.minelsaygisever.fxtrackr.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minelsaygisever.fxtrackr.config.AppConfig;
+import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests FixerRestClient over the pooled HTTP transport from AppConfig against a local stub Fixer server.
+ */
+class FixerRestClientTest {
+
+    private static final String RATES = "{\"success\":true,\"timestamp\":1519296206,\"base\":\"EUR\","
+            + "\"date\":\"2025-04-30\",\"rates\":{\"EUR\":1,\"USD\":1.083921,\"JPY\":155.123456789}}";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger status = new AtomicInteger(200);
+
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private FixerRestClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/latest", exchange -> {
+            byte[] body = (status.get() == 200 ? RATES : "{\"error\":\"unavailable\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status.get(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        AppConfig config = new AppConfig();
+        PoolingHttpClientConnectionManager connectionManager = config.fixerConnectionManager(4, 4);
+        config.fixerConnectionPoolMetrics(connectionManager).bindTo(meterRegistry);
+        httpClient = config.fixerHttpClient(connectionManager, meterRegistry, 1000, 2000, 1000, 30);
+        CircuitBreaker circuitBreaker = config.fixerCircuitBreaker(meterRegistry, 50, 5000, 10, 10, 60000, 1);
+
+        client = new FixerRestClient(config.restTemplate(httpClient), meterRegistry, new ObjectMapper(),
+                circuitBreaker, mock(FixerRateLimiter.class));
+        ReflectionTestUtils.setField(client, "apiKey", "test-key");
+        ReflectionTestUtils.setField(client, "apiUrl", "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("latest rates are parsed from the response")
+    void testFetchLatestRates() {
+        Map<String, BigDecimal> rates = client.getLatestRates();
+
+        assertEquals(3, rates.size());
+        assertEquals(new BigDecimal("1.083921"), rates.get("USD"));
+        assertEquals(new BigDecimal("155.123456789"), rates.get("JPY"));
+        assertEquals(1, meterRegistry.timer("fxtrackr.fixer.requests", "endpoint", "latest", "outcome", "success").count());
+    }
+
+    @Test
+    @DisplayName("an HTTP 5xx is reported as an external API failure")
+    void testServerError() {
+        status.set(503);
+
+        assertThrows(ExternalApiException.class, () -> client.getLatestRates());
+
+        assertEquals(1, meterRegistry.timer("fxtrackr.fixer.requests", "endpoint", "latest", "outcome", "failure").count());
+    }
+
+    @Test
+    @DisplayName("consecutive calls reuse the pooled connection")
+    void testConnectionIsReused() {
+        client.getLatestRates();
+        client.getLatestRates();
+        client.getLatestRates();
+
+        assertEquals(1, connections("new"));
+        assertEquals(2, connections("reused"));
+    }
+
+    @Test
+    @DisplayName("the Fixer connection pool is published with its limits")
+    void testConnectionPoolMetrics() {
+        client.getLatestRates();
+
+        assertEquals(4, meterRegistry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "fixer").gauge().value());
+        assertEquals(0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tags("httpclient", "fixer", "state", "leased").gauge().value());
+        assertEquals(1, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tags("httpclient", "fixer", "state", "available").gauge().value());
+    }
+
+    @Test
+    @DisplayName("repeated failures open the circuit breaker, which then rejects calls without calling Fixer")
+    void testCircuitBreakerOpensAndRejects() {
+        status.set(503);
+        assertEquals(0, circuitState());
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(ExternalApiException.class, () -> client.getLatestRates());
+        }
+
+        assertEquals(1, circuitState());
+        assertThrows(ExternalApiException.class, () -> client.getLatestRates());
+        assertEquals(1, meterRegistry.counter("fxtrackr.fixer.circuit.rejected", "endpoint", "latest").count());
+        assertEquals(10, meterRegistry.timer("fxtrackr.fixer.requests", "endpoint", "latest", "outcome", "failure").count());
+    }
+
+    private double circuitState() {
+        return meterRegistry.get("fxtrackr.fixer.circuit.state").gauge().value();
+    }
+
+    private double connections(String connection) {
+        return meterRegistry.counter("fxtrackr.fixer.connections", "connection", connection).count();
+    }
+}
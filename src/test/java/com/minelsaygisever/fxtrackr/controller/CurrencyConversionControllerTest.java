@@ -1,12 +1,17 @@
 package com.minelsaygisever.fxtrackr.controller;
 
+import com.minelsaygisever.fxtrackr.dto.BulkConversionJobResponse;
 import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.dto.BulkJobStatus;
+import com.minelsaygisever.fxtrackr.dto.BulkResultFormat;
 import com.minelsaygisever.fxtrackr.dto.ConversionHistoryResponse;
 import com.minelsaygisever.fxtrackr.dto.CurrencyConversionResponse;
 import com.minelsaygisever.fxtrackr.dto.ExchangeRateResponse;
+import com.minelsaygisever.fxtrackr.exception.BulkJobNotReadyException;
 import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
 import com.minelsaygisever.fxtrackr.exception.GlobalExceptionHandler;
 import com.minelsaygisever.fxtrackr.exception.InvalidCsvHeaderException;
+import com.minelsaygisever.fxtrackr.service.BulkConversionJobService;
 import com.minelsaygisever.fxtrackr.service.CurrencyConversionService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,6 +25,7 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
@@ -31,6 +37,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -39,6 +46,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Unit tests for CurrencyConversionController - only the exchange-rate endpoint.
  */
 @SpringBootTest
+@ActiveProfiles("test")
 @AutoConfigureMockMvc
 @Import(GlobalExceptionHandler.class)
 class CurrencyConversionControllerTest {
@@ -49,6 +57,9 @@ class CurrencyConversionControllerTest {
     @MockBean
     private CurrencyConversionService currencyConversionService;
 
+    @MockBean
+    private BulkConversionJobService bulkConversionJobService;
+
     @Test
     @DisplayName("GET /api/exchange-rate - Success")
     void testGetExchangeRate_Success() throws Exception {
@@ -349,4 +360,45 @@ class CurrencyConversionControllerTest {
                 .andExpect(jsonPath("$[1].message").value("Amount must be greater than zero"));
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("POST /api/convert/bulk/jobs - accepted → 202 with job location")
+    void testSubmitBulkJob_Accepted() throws Exception {
+        when(bulkConversionJobService.submit(any(), eq(BulkResultFormat.NDJSON)))
+                .thenReturn(BulkConversionJobResponse.builder()
+                        .jobId("job-1")
+                        .status(BulkJobStatus.QUEUED)
+                        .fileName("nightly.csv")
+                        .format(BulkResultFormat.NDJSON)
+                        .submittedAt(Instant.parse("2025-05-02T01:00:00Z"))
+                        .build());
+
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "nightly.csv", "text/csv",
+                ("amount,from,to\n" +
+                        "100.00,USD,EUR\n").getBytes()
+        );
+
+        mockMvc.perform(multipart("/api/convert/bulk/jobs").file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/convert/bulk/jobs/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    @DisplayName("GET /api/convert/bulk/jobs/{id}/results - job still running → 409")
+    void testBulkJobResults_NotCompleted() throws Exception {
+        when(bulkConversionJobService.getJob("job-1"))
+                .thenReturn(BulkConversionJobResponse.builder()
+                        .jobId("job-1")
+                        .status(BulkJobStatus.RUNNING)
+                        .format(BulkResultFormat.NDJSON)
+                        .build());
+        when(bulkConversionJobService.getResults("job-1"))
+                .thenThrow(new BulkJobNotReadyException("Bulk conversion job 'job-1' is RUNNING; results are available once it has completed."));
+
+        mockMvc.perform(get("/api/convert/bulk/jobs/job-1/results"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("JOB_NOT_COMPLETED"));
+    }
+}
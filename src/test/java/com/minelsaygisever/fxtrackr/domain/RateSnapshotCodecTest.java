@@ -0,0 +1,50 @@
+package com.minelsaygisever.fxtrackr.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary rate snapshot format stored in Redis.
+ */
+class RateSnapshotCodecTest {
+
+    private final Map<String, BigDecimal> rates = Map.of(
+            "USD", new BigDecimal("1.085400"),
+            "JPY", new BigDecimal("169.45"),
+            "EUR", BigDecimal.ONE
+    );
+
+    @Test
+    @DisplayName("rates and fetch time round-trip exactly, including scale")
+    void testRoundTrip() {
+        Instant fetchedAt = Instant.parse("2025-05-02T14:30:00.123Z");
+
+        RateSnapshotCodec.Decoded decoded = RateSnapshotCodec.decode(RateSnapshotCodec.encode(rates, fetchedAt));
+
+        assertEquals(rates, decoded.getRates());
+        assertEquals(fetchedAt, decoded.getFetchedAt());
+    }
+
+    @Test
+    @DisplayName("corrupted data is rejected by the checksum")
+    void testCorruptedDataRejected() {
+        byte[] data = RateSnapshotCodec.encode(rates, Instant.now());
+        data[20] ^= 0x01;
+
+        assertThrows(IllegalArgumentException.class, () -> RateSnapshotCodec.decode(data));
+    }
+
+    @Test
+    @DisplayName("rates that do not fit a long unscaled value cannot be encoded")
+    void testOversizedRateRejected() {
+        Map<String, BigDecimal> oversized = Map.of("USD", new BigDecimal("1.00000000000000000000000001"));
+
+        assertThrows(IllegalArgumentException.class, () -> RateSnapshotCodec.encode(oversized, Instant.now()));
+    }
+}
@@ -0,0 +1,56 @@
+package com.minelsaygisever.fxtrackr.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the cross-rate matrix built by RateSnapshot.
+ */
+class RateSnapshotTest {
+
+    private final RateSnapshot snapshot = new RateSnapshot(1, Instant.now(), System.currentTimeMillis(), Map.of(
+            "USD", new BigDecimal("1.1"),
+            "EUR", new BigDecimal("1.0"),
+            "GBP", new BigDecimal("0.9")
+    ));
+
+    @Test
+    @DisplayName("cross rates match the triangular calculation in both directions")
+    void testCrossRates() {
+        assertEquals(new BigDecimal("0.818182"), snapshot.getCrossRate("USD", "GBP"));
+        assertEquals(new BigDecimal("1.222222"), snapshot.getCrossRate("GBP", "USD"));
+        assertEquals(new BigDecimal("0.909091"), snapshot.getCrossRate("USD", "EUR"));
+    }
+
+    @Test
+    @DisplayName("diagonal is the identity, at the scale of the other cross rates")
+    void testIdentityDiagonal() {
+        assertEquals(new BigDecimal("1.000000"), snapshot.getCrossRate("USD", "USD"));
+        assertEquals(RateSnapshot.CROSS_RATE_SCALE, snapshot.getCrossRate("EUR", "EUR").scale());
+    }
+
+    @Test
+    @DisplayName("unknown or malformed codes resolve to no rate")
+    void testUnknownCodes() {
+        assertEquals(-1, snapshot.idOf("TRY"));
+        assertEquals(-1, snapshot.idOf("usd"));
+        assertNull(snapshot.getCrossRate("USD", "TRY"));
+        assertNull(snapshot.getCrossRate("TRY", "USD"));
+    }
+
+    @Test
+    @DisplayName("ids resolved once can be reused for array lookups")
+    void testIdLookup() {
+        int usd = snapshot.idOf("USD");
+        int gbp = snapshot.idOf("GBP");
+
+        assertEquals(3, snapshot.getCurrencyCount());
+        assertEquals(snapshot.getCrossRate("USD", "GBP"), snapshot.getCrossRate(usd, gbp));
+    }
+}
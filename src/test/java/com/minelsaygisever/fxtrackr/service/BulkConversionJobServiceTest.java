@@ -0,0 +1,228 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
+import com.minelsaygisever.fxtrackr.dto.BulkJobStatus;
+import com.minelsaygisever.fxtrackr.dto.BulkResultFormat;
+import com.minelsaygisever.fxtrackr.exception.BulkJobNotFoundException;
+import com.minelsaygisever.fxtrackr.exception.BulkJobNotReadyException;
+import com.minelsaygisever.fxtrackr.exception.BulkJobRejectedException;
+import com.minelsaygisever.fxtrackr.exception.BulkProcessingException;
+import com.minelsaygisever.fxtrackr.exception.InvalidCsvHeaderException;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BulkConversionJobService, with a stub processor and a temporary work dir.
+ */
+class BulkConversionJobServiceTest {
+
+    private static final String CSV = "amount,from,to\n100,USD,EUR\n";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final BulkConversionProcessor processor = mock(BulkConversionProcessor.class);
+    private final List<BulkConversionJobService> services = new ArrayList<>();
+
+    @TempDir
+    Path workDir;
+
+    @BeforeEach
+    void setUp() {
+        when(processor.open(any())).thenAnswer(invocation -> CSVFormat.DEFAULT.withFirstRecordAsHeader()
+                .parse(new InputStreamReader(invocation.<InputStream>getArgument(0), StandardCharsets.UTF_8)));
+        doAnswer(invocation -> {
+            BulkResultSink sink = invocation.getArgument(1);
+            sink.accept(new BulkConversionResult(1, "tx-1", new BigDecimal("92.340000"), "SUCCESS", "OK"));
+            sink.chunkCompleted();
+            return null;
+        }).when(processor).process(any(InputStream.class), any(BulkResultSink.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(BulkConversionJobService::shutdown);
+    }
+
+    @Test
+    @DisplayName("a completed job is restored with its results by a fresh instance")
+    void testCompletedJobSurvivesRestart() throws Exception {
+        BulkConversionJobService service = newService(2, 10);
+        String jobId = service.submit(upload(), BulkResultFormat.CSV).getJobId();
+
+        awaitStatus(service, jobId, BulkJobStatus.COMPLETED);
+        String results = read(service, jobId);
+        assertTrue(results.contains("1,tx-1,92.340000,SUCCESS,OK"));
+        assertFalse(Files.exists(workDir.resolve(jobId + ".csv")));
+
+        BulkConversionJobService restarted = newService(2, 10);
+
+        assertEquals(BulkJobStatus.COMPLETED, restarted.getJob(jobId).getStatus());
+        assertEquals(1, restarted.getJob(jobId).getSuccessCount());
+        assertEquals(results, read(restarted, jobId));
+    }
+
+    @Test
+    @DisplayName("an upload with a bad header is rejected on submit and nothing is left behind")
+    void testInvalidHeaderIsRejectedOnSubmit() throws IOException {
+        doThrow(new InvalidCsvHeaderException("Invalid CSV header.")).when(processor).open(any());
+        BulkConversionJobService service = newService(2, 10);
+
+        assertThrows(InvalidCsvHeaderException.class, () -> service.submit(upload(), BulkResultFormat.CSV));
+
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    @DisplayName("a job beyond the pool and its queue is rejected and its upload deleted")
+    void testFullQueueRejectsJob() throws Exception {
+        CountDownLatch release = blockProcessing();
+        BulkConversionJobService service = newService(1, 0);
+        String running = service.submit(upload(), BulkResultFormat.CSV).getJobId();
+        try {
+            assertThrows(BulkJobRejectedException.class, () -> service.submit(upload(), BulkResultFormat.CSV));
+
+            assertTrue(files().stream().allMatch(file -> file.startsWith(running)));
+        } finally {
+            release.countDown();
+        }
+        awaitStatus(service, running, BulkJobStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("a failed job reports its error and keeps no partial results")
+    void testFailedJobDeletesResults() throws Exception {
+        doAnswer(invocation -> {
+            BulkResultSink sink = invocation.getArgument(1);
+            sink.accept(new BulkConversionResult(1, "tx-1", new BigDecimal("92.340000"), "SUCCESS", "OK"));
+            throw new BulkProcessingException("Failed to process bulk CSV file.", new IOException("disk full"));
+        }).when(processor).process(any(InputStream.class), any(BulkResultSink.class));
+        BulkConversionJobService service = newService(2, 10);
+        String jobId = service.submit(upload(), BulkResultFormat.CSV).getJobId();
+
+        awaitStatus(service, jobId, BulkJobStatus.FAILED);
+
+        assertFalse(Files.exists(workDir.resolve(jobId + ".results.csv")));
+        assertThrows(BulkJobNotReadyException.class, () -> service.getResults(jobId));
+    }
+
+    @Test
+    @DisplayName("an expired job is purged only once its results download has ended")
+    void testPurgeSkipsOpenDownloads() throws Exception {
+        BulkConversionJobService service = newService(2, 10);
+        ReflectionTestUtils.setField(service, "retentionMinutes", 0L);
+        String jobId = service.submit(upload(), BulkResultFormat.CSV).getJobId();
+        awaitStatus(service, jobId, BulkJobStatus.COMPLETED);
+
+        try (InputStream download = service.getResults(jobId).getInputStream()) {
+            service.purgeExpiredJobs();
+
+            assertEquals(BulkJobStatus.COMPLETED, service.getJob(jobId).getStatus());
+            assertTrue(download.read() >= 0);
+        }
+        service.purgeExpiredJobs();
+
+        assertThrows(BulkJobNotFoundException.class, () -> service.getJob(jobId));
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    @DisplayName("a job this instance was running when it stopped is failed and cleaned up on restart")
+    void testInterruptedJobIsFailedOnRestart() throws Exception {
+        CountDownLatch release = blockProcessing();
+        BulkConversionJobService crashed = newService(1, 10);
+        String jobId = crashed.submit(upload(), BulkResultFormat.CSV).getJobId();
+        try {
+            BulkConversionJobService restarted = newService(1, 10);
+
+            assertEquals(BulkJobStatus.FAILED, restarted.getJob(jobId).getStatus());
+            assertFalse(Files.exists(workDir.resolve(jobId + ".csv")));
+        } finally {
+            release.countDown();
+        }
+        awaitStatus(crashed, jobId, BulkJobStatus.COMPLETED);
+    }
+
+    private BulkConversionJobService newService(int workers, int queueCapacity) throws IOException {
+        BulkConversionJobService service = new BulkConversionJobService(processor, objectMapper);
+        ReflectionTestUtils.setField(service, "workers", workers);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "workDirectory", workDir.toString());
+        ReflectionTestUtils.setField(service, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(service, "maxUploadSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(service, "instanceId", "test");
+        service.init();
+        services.add(service);
+        return service;
+    }
+
+    /**
+     * Makes the stub processor wait until the returned latch is released.
+     */
+    private CountDownLatch blockProcessing() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(processor).process(any(InputStream.class), any(BulkResultSink.class));
+        return release;
+    }
+
+    private static MockMultipartFile upload() {
+        return new MockMultipartFile("file", "rates.csv", "text/csv", CSV.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Waits until the job has the given status, both in memory and in its saved state.
+     */
+    private void awaitStatus(BulkConversionJobService service, String jobId, BulkJobStatus status)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (service.getJob(jobId).getStatus() != status || savedStatus(jobId) != status) {
+            assertTrue(System.nanoTime() < deadline, "Job " + jobId + " did not reach " + status);
+            Thread.sleep(10);
+        }
+    }
+
+    private BulkJobStatus savedStatus(String jobId) throws IOException {
+        return objectMapper.readValue(workDir.resolve(jobId + ".job.json").toFile(), BulkJobState.class)
+                .getJob().getStatus();
+    }
+
+    private static String read(BulkConversionJobService service, String jobId) throws IOException {
+        try (InputStream in = service.getResults(jobId).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(workDir)) {
+            return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}
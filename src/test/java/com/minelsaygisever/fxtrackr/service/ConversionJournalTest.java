@@ -0,0 +1,80 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConversionJournal.
+ */
+class ConversionJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("records survive a reopen and resume after the checkpoint, across segments")
+    void testReopenRecoversUndrainedRecords() throws IOException {
+        CurrencyConversion first = conversion("100.000000");
+        ConversionJournal journal = ConversionJournal.open(dir, 2);
+        journal.append(first);
+        journal.append(conversion("200.000000"));
+        journal.append(conversion("300.000000"));
+        journal.checkpoint(1);
+        journal.close();
+
+        ConversionJournal reopened = ConversionJournal.open(dir, 2);
+        assertEquals(1, reopened.getDrainPosition());
+        assertEquals(3, reopened.getWritePosition());
+        assertEquals(new BigDecimal("200.000000"), reopened.read(1).getSourceAmount());
+
+        CurrencyConversion third = reopened.read(2);
+        assertEquals(new BigDecimal("300.000000"), third.getSourceAmount());
+        assertEquals("USD", third.getSourceCurrency());
+        assertEquals(new BigDecimal("0.923400"), third.getExchangeRate());
+
+        reopened.checkpoint(3);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.filter(file -> file.getFileName().toString().startsWith("journal-")).count());
+        }
+        assertNotEquals(first.getId(), third.getId());
+    }
+
+    @Test
+    @DisplayName("a torn record ends the journal on recovery and is overwritten by the next append")
+    void testTornRecordIsDiscarded() throws IOException {
+        ConversionJournal journal = ConversionJournal.open(dir, 16);
+        journal.append(conversion("100.000000"));
+        journal.append(conversion("200.000000"));
+        journal.close();
+
+        try (RandomAccessFile segment = new RandomAccessFile(
+                dir.resolve(String.format("journal-%020d.dat", 0)).toFile(), "rw")) {
+            segment.seek(ConversionJournal.RECORD_SIZE + 40);
+            segment.write(0x7F);
+        }
+
+        ConversionJournal reopened = ConversionJournal.open(dir, 16);
+        assertEquals(1, reopened.getWritePosition());
+        reopened.append(conversion("300.000000"));
+        assertEquals(new BigDecimal("300.000000"), reopened.read(1).getSourceAmount());
+    }
+
+    private static CurrencyConversion conversion(String amount) {
+        Instant timestamp = Instant.parse("2025-04-30T15:04:05.123456Z");
+        return new CurrencyConversion(UUID.randomUUID().toString(), "USD", "EUR", new BigDecimal(amount),
+                new BigDecimal("92.340000"), new BigDecimal("0.923400"), timestamp, CurrencyConversion.dayOf(timestamp));
+    }
+}
@@ -0,0 +1,109 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.client.FixerRestClient;
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import com.minelsaygisever.fxtrackr.repository.CurrencyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for ConversionRetentionService against the H2 schema.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ConversionRetentionServiceTest {
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("conversion.retention.archive-dir", () -> archiveDir.toString());
+        registry.add("conversion.retention.batch-size", () -> 2);
+    }
+
+    @MockBean
+    private ExchangeRateCacheService exchangeRateCacheService;
+
+    @MockBean
+    private CurrencyRepository currencyRepository;
+
+    @MockBean
+    private FixerRestClient fixerRestClient;
+
+    @Autowired
+    private ConversionRetentionService retentionService;
+
+    @Autowired
+    private CurrencyConversionRepository currencyConversionRepository;
+
+    @AfterEach
+    void tearDown() {
+        currencyConversionRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("purgeBefore - archives and deletes only the expired days")
+    void testPurgeBefore_ArchivesThenDeletesExpiredDays() throws IOException {
+        save("tx-old-1", "2020-01-01T08:00:00Z");
+        save("tx-old-2", "2020-01-01T09:00:00Z");
+        save("tx-old-3", "2020-01-01T10:00:00Z");
+        save("tx-kept", "2021-06-01T08:00:00Z");
+
+        long deleted = retentionService.purgeBefore(LocalDate.of(2021, 1, 1));
+
+        assertEquals(3, deleted);
+        assertEquals(List.of("tx-kept"), currencyConversionRepository.findAll().stream()
+                .map(CurrencyConversion::getId)
+                .collect(Collectors.toList()));
+
+        List<String> archived = readGzipLines(archiveDir.resolve("conversions-2020-01-01.csv.gz"));
+        assertEquals(4, archived.size());
+        assertTrue(archived.get(0).startsWith("transactionId,"));
+        assertTrue(archived.get(1).startsWith("tx-old-1,USD,EUR,100.000000,92.340000,0.923400,"));
+        assertTrue(archived.get(3).startsWith("tx-old-3,"));
+    }
+
+    private void save(String id, String timestamp) {
+        currencyConversionRepository.save(CurrencyConversion.builder()
+                .id(id)
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .sourceAmount(new BigDecimal("100.000000"))
+                .convertedAmount(new BigDecimal("92.340000"))
+                .exchangeRate(new BigDecimal("0.923400"))
+                .timestamp(Instant.parse(timestamp))
+                .build());
+    }
+
+    private static List<String> readGzipLines(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -3,12 +3,18 @@ package com.minelsaygisever.fxtrackr.service;
 import com.minelsaygisever.fxtrackr.client.FixerRestClient;
 import com.minelsaygisever.fxtrackr.domain.Currency;
 import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.domain.RateSnapshotCodec;
+import com.minelsaygisever.fxtrackr.domain.StoredRateSnapshot;
 import com.minelsaygisever.fxtrackr.dto.BulkConversionResult;
 import com.minelsaygisever.fxtrackr.dto.ConversionHistoryResponse;
+import com.minelsaygisever.fxtrackr.dto.ConversionHistorySlice;
 import com.minelsaygisever.fxtrackr.dto.ExchangeRateResponse;
+import com.minelsaygisever.fxtrackr.dto.HistoricalRateResponse;
 import com.minelsaygisever.fxtrackr.exception.*;
 import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
 import com.minelsaygisever.fxtrackr.repository.CurrencyRepository;
+import com.minelsaygisever.fxtrackr.repository.RateSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,6 +26,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -31,13 +41,16 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for CurrencyConversionService, updated for caching and new architecture.
  */
 @SpringBootTest
+@ActiveProfiles("test")
 class CurrencyConversionServiceTest {
 
     @MockBean
@@ -54,7 +67,19 @@ class CurrencyConversionServiceTest {
     @Autowired
     private CurrencyConversionService conversionService;
 
-    private final Map<Object, Object> mockRates = Map.of(
+    @Autowired
+    private RateSnapshotService rateSnapshotService;
+
+    @Autowired
+    private CurrencyRegistry currencyRegistry;
+
+    @Autowired
+    private RateSnapshotRepository rateSnapshotRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, BigDecimal> mockRates = Map.of(
             "USD", new BigDecimal("1.1"),
             "EUR", new BigDecimal("1.0"),
             "GBP", new BigDecimal("0.9")
@@ -63,21 +88,22 @@ class CurrencyConversionServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        // assume all specified currencies are valid
-        when(currencyRepository.findByCodeAndIsActiveTrue(anyString()))
-                .thenAnswer(invocation -> {
-                    String code = invocation.getArgument(0);
-                    if ("USD".equals(code) || "EUR".equals(code) || "GBP".equals(code) || "TRY".equals(code)) {
-                        return Optional.of(new Currency(code, "A valid currency", true));
-                    }
-                    return Optional.empty(); // By default, currency is not found
-                });
+        // every test starts without a local snapshot so that the cache mocks are consulted
+        rateSnapshotService.invalidate();
+        // assume all specified currencies are valid; any other code (e.g. XXX) is not active
+        when(currencyRepository.findAllByIsActiveTrue()).thenReturn(List.of(
+                new Currency("USD", "A valid currency", true),
+                new Currency("EUR", "A valid currency", true),
+                new Currency("GBP", "A valid currency", true),
+                new Currency("TRY", "A valid currency", true)
+        ));
+        currencyRegistry.reload();
     }
 
     @Test
     @DisplayName("getExchangeRate - success with cached rates")
     void testGetExchangeRate_Success() {
-        when(exchangeRateCacheService.getRatesMap()).thenReturn(Optional.of(mockRates));
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.of(mockRates));
 
         ExchangeRateResponse response = conversionService.getExchangeRate(" uSd ", "gBp ");
 
@@ -93,7 +119,7 @@ class CurrencyConversionServiceTest {
                 "EUR", new BigDecimal("1.0"),
                 "GBP", new BigDecimal("0.85")
         );
-        when(exchangeRateCacheService.getRatesMap()).thenReturn(Optional.empty()); // Cache miss
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.empty()); // Cache miss
         when(fixerRestClient.getLatestRates()).thenReturn(liveRates); // API call
 
         ExchangeRateResponse response = conversionService.getExchangeRate("USD", "GBP");
@@ -107,8 +133,6 @@ class CurrencyConversionServiceTest {
     @Test
     @DisplayName("getExchangeRate - unsupported currency throws UnsupportedCurrencyException")
     void testGetExchangeRate_UnsupportedCurrency() {
-        when(currencyRepository.findByCodeAndIsActiveTrue("XXX")).thenReturn(Optional.empty());
-
         UnsupportedCurrencyException ex = assertThrows(
                 UnsupportedCurrencyException.class,
                 () -> conversionService.getExchangeRate("USD", "XXX")
@@ -119,8 +143,8 @@ class CurrencyConversionServiceTest {
     @Test
     @DisplayName("getExchangeRate - rate not in data source throws RateNotFoundException")
     void testGetExchangeRate_RateNotFoundInMap() {
-        Map<Object, Object> partialRates = Map.of("USD", new BigDecimal("1.1")); // GBP is missing
-        when(exchangeRateCacheService.getRatesMap()).thenReturn(Optional.of(partialRates));
+        Map<String, BigDecimal> partialRates = Map.of("USD", new BigDecimal("1.1")); // GBP is missing
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.of(partialRates));
 
         RateNotFoundException ex = assertThrows(
                 RateNotFoundException.class,
@@ -132,7 +156,7 @@ class CurrencyConversionServiceTest {
     @Test
     @DisplayName("convertAndSaveCurrency - success")
     void testConvertAndSaveCurrency_Success() {
-        when(exchangeRateCacheService.getRatesMap()).thenReturn(Optional.of(mockRates));
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.of(mockRates));
         when(currencyConversionRepository.save(any(CurrencyConversion.class)))
                 .thenAnswer(inv -> {
                     CurrencyConversion conversion = inv.getArgument(0);
@@ -165,8 +189,8 @@ class CurrencyConversionServiceTest {
     @Test
     @DisplayName("getConversionHistory - by transactionId")
     void testGetHistory_ByTransactionId_Success() {
-        CurrencyConversion entity = CurrencyConversion.builder().id("tx-1").timestamp(Instant.now()).sourceCurrency("USD").targetCurrency("EUR").build();
-        when(currencyConversionRepository.findById("tx-1")).thenReturn(Optional.of(entity));
+        ConversionHistoryResponse conversion = ConversionHistoryResponse.builder().transactionId("tx-1").timestamp(Instant.now()).sourceCurrency("USD").targetCurrency("EUR").build();
+        when(currencyConversionRepository.findHistoryById("tx-1")).thenReturn(Optional.of(conversion));
 
         Page<ConversionHistoryResponse> result = conversionService.getConversionHistory("tx-1", null, Pageable.ofSize(10));
 
@@ -177,14 +201,14 @@ class CurrencyConversionServiceTest {
     @Test
     @DisplayName("getConversionHistory - by date range")
     void testGetHistory_ByDateRange() {
-        CurrencyConversion e1 = CurrencyConversion.builder().id("tx-3").timestamp(Instant.parse("2025-04-30T01:00:00Z")).build();
-        CurrencyConversion e2 = CurrencyConversion.builder().id("tx-4").timestamp(Instant.parse("2025-04-30T23:00:00Z")).build();
-        when(currencyConversionRepository.findByTimestampBetween(any(), any(), any())).thenReturn(new PageImpl<>(List.of(e1, e2)));
+        ConversionHistoryResponse e1 = ConversionHistoryResponse.builder().transactionId("tx-3").timestamp(Instant.parse("2025-04-30T01:00:00Z")).build();
+        ConversionHistoryResponse e2 = ConversionHistoryResponse.builder().transactionId("tx-4").timestamp(Instant.parse("2025-04-30T23:00:00Z")).build();
+        when(currencyConversionRepository.findHistoryByDay(anyInt(), any())).thenReturn(new PageImpl<>(List.of(e1, e2)));
 
         Page<ConversionHistoryResponse> page = conversionService.getConversionHistory(null, LocalDate.of(2025, 4, 30), Pageable.ofSize(5));
 
         assertEquals(2, page.getTotalElements());
-        verify(currencyConversionRepository, times(1)).findByTimestampBetween(any(), any(), any());
+        verify(currencyConversionRepository, times(1)).findHistoryByDay(eq((int) LocalDate.of(2025, 4, 30).toEpochDay()), any());
     }
 
     @Test
@@ -196,6 +220,32 @@ class CurrencyConversionServiceTest {
         );
     }
 
+    @Test
+    @DisplayName("getConversionHistorySlice - cursor of the last row resumes after it")
+    void testGetHistorySlice_CursorResumesAfterLastRow() {
+        ConversionHistoryResponse e1 = ConversionHistoryResponse.builder().transactionId("tx-5").timestamp(Instant.parse("2025-04-30T01:00:00Z")).build();
+        ConversionHistoryResponse e2 = ConversionHistoryResponse.builder().transactionId("tx-6").timestamp(Instant.parse("2025-04-30T02:00:00Z")).build();
+        ConversionHistoryResponse e3 = ConversionHistoryResponse.builder().transactionId("tx-7").timestamp(Instant.parse("2025-04-30T03:00:00Z")).build();
+        when(currencyConversionRepository.findFirstKeysetPage(anyInt(), any())).thenReturn(List.of(e1, e2, e3));
+        when(currencyConversionRepository.findKeysetPageAfter(anyInt(), any(), any(), any())).thenReturn(List.of(e3));
+
+        ConversionHistorySlice first = conversionService.getConversionHistorySlice(null, LocalDate.of(2025, 4, 30), null, 2);
+        assertEquals(2, first.getSize());
+        assertTrue(first.isHasNext());
+        assertNotNull(first.getNextCursor());
+
+        ConversionHistorySlice second = conversionService.getConversionHistorySlice(
+                null, LocalDate.of(2025, 4, 30), first.getNextCursor(), 2);
+        assertEquals("tx-7", second.getContent().get(0).getTransactionId());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+        verify(currencyConversionRepository).findKeysetPageAfter(
+                anyInt(), eq(Instant.parse("2025-04-30T02:00:00Z")), eq("tx-6"), any());
+
+        assertThrows(InvalidCursorException.class,
+                () -> conversionService.getConversionHistorySlice(null, LocalDate.of(2025, 4, 30), "not-a-cursor", 2));
+    }
+
     @Test
     @DisplayName("bulkConvert - invalid CSV header throws InvalidCsvHeaderException")
     void testBulkConvert_InvalidHeader() {
@@ -209,18 +259,24 @@ class CurrencyConversionServiceTest {
         assertTrue(ex.getMessage().contains("missing columns"));
     }
 
+    @Test
+    @DisplayName("bulkConvert - a file over bulk.max-upload-size throws UploadTooLargeException")
+    void testBulkConvert_FileTooLarge() {
+        MockMultipartFile file = new MockMultipartFile("file", "big.csv", "text/csv", "amount,from,to\n".getBytes());
+        // the service is proxied for method validation; the limit lives on the target
+        Object target = AopTestUtils.getTargetObject(conversionService);
+        ReflectionTestUtils.setField(target, "bulkMaxUploadSize", DataSize.ofBytes(4));
+        try {
+            assertThrows(UploadTooLargeException.class, () -> conversionService.bulkConvert(file));
+        } finally {
+            ReflectionTestUtils.setField(target, "bulkMaxUploadSize", DataSize.ofMegabytes(20));
+        }
+    }
+
     @Test
     @DisplayName("bulkConvert - mixed valid and invalid rows")
     void testBulkConvert_MixedRows() throws Exception {
-        when(exchangeRateCacheService.getRatesMap()).thenReturn(Optional.of(mockRates));
-        // Mock unsupported currency
-        when(currencyRepository.findByCodeAndIsActiveTrue("XXX")).thenReturn(Optional.empty());
-
-        when(currencyConversionRepository.save(any(CurrencyConversion.class))).thenAnswer(inv -> {
-            CurrencyConversion e = inv.getArgument(0);
-            e.setId(UUID.randomUUID().toString());
-            return e;
-        });
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.of(mockRates));
 
         String csv =
                 "amount,from,to\n" +
@@ -228,6 +284,9 @@ class CurrencyConversionServiceTest {
                         "-5.00,USD,EUR\n" +        // Line 2: INVALID_AMOUNT
                         "50.50,USD,XXX";         // Line 3: UNSUPPORTED_CURRENCY
         MockMultipartFile file = new MockMultipartFile("file", "mix.csv", "text/csv", csv.getBytes());
+        double successRows = bulkRows("SUCCESS");
+        double invalidAmountRows = bulkRows("INVALID_AMOUNT");
+        double unsupportedRows = bulkRows("UNSUPPORTED_CURRENCY");
 
         List<BulkConversionResult> results = conversionService.bulkConvert(file);
 
@@ -243,23 +302,24 @@ class CurrencyConversionServiceTest {
         assertEquals("UNSUPPORTED_CURRENCY", results.get(2).getCode());
         assertNull(results.get(2).getTransactionId());
 
-        verify(currencyConversionRepository, times(1)).save(any());
+        // only the successful row is written, in a single chunk
+        verify(currencyConversionRepository, times(1)).insertAll(argThat(chunk -> chunk.size() == 1));
+        verify(currencyConversionRepository, never()).save(any());
+
+        // every row is counted under its result code
+        assertEquals(successRows + 1, bulkRows("SUCCESS"));
+        assertEquals(invalidAmountRows + 1, bulkRows("INVALID_AMOUNT"));
+        assertEquals(unsupportedRows + 1, bulkRows("UNSUPPORTED_CURRENCY"));
     }
 
     @Test
     @DisplayName("bulkConvert - row with rate not available")
     void testBulkConvert_RateNotAvailableForRow() throws Exception {
-        Map<Object, Object> ratesWithoutTry = Map.of(
+        Map<String, BigDecimal> ratesWithoutTry = Map.of(
                 "USD", new BigDecimal("1.2"),
                 "EUR", new BigDecimal("1.0")
         );
-        when(exchangeRateCacheService.getRatesMap()).thenReturn(Optional.of(ratesWithoutTry));
-
-        when(currencyConversionRepository.save(any(CurrencyConversion.class))).thenAnswer(inv -> {
-            CurrencyConversion e = inv.getArgument(0);
-            e.setId(UUID.randomUUID().toString());
-            return e;
-        });
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.of(ratesWithoutTry));
 
         String csv =
                 "amount,from,to\n" +
@@ -278,6 +338,95 @@ class CurrencyConversionServiceTest {
         assertEquals("RATE_NOT_AVAILABLE", results.get(1).getCode());
         assertNull(results.get(1).getTransactionId());
 
-        verify(currencyConversionRepository, times(1)).save(any());
+        // only the successful row is written, in a single chunk
+        verify(currencyConversionRepository, times(1)).insertAll(argThat(chunk -> chunk.size() == 1));
+        verify(currencyConversionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("bulkConvert - multi-chunk upload keeps line numbers and order")
+    void testBulkConvert_MultipleChunksKeepOrder() throws Exception {
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.of(mockRates));
+
+        // 2,500 rows span three chunks, converted concurrently; every 7th row is invalid
+        StringBuilder csv = new StringBuilder("amount,from,to\n");
+        for (int line = 1; line <= 2_500; line++) {
+            csv.append(line % 7 == 0 ? "-1" : String.valueOf(line)).append(",USD,EUR\n");
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "large.csv", "text/csv", csv.toString().getBytes());
+
+        List<BulkConversionResult> results = conversionService.bulkConvert(file);
+
+        assertEquals(2_500, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            int line = i + 1;
+            assertEquals(line, results.get(i).getLine());
+            assertEquals(line % 7 == 0 ? "INVALID_AMOUNT" : "SUCCESS", results.get(i).getCode());
+        }
+        verify(currencyConversionRepository, times(3)).insertAll(any());
+    }
+
+    @Test
+    @DisplayName("announced rate versions reload the snapshot only when newer")
+    void testOnSourceVersion_ReloadsOnlyNewerVersions() {
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.of(mockRates));
+        long next = rateSnapshotService.getSourceVersion() + 1;
+
+        rateSnapshotService.onSourceVersion(next);
+        rateSnapshotService.onSourceVersion(next);     // duplicate
+        rateSnapshotService.onSourceVersion(next - 1); // out of order
+
+        verify(exchangeRateCacheService, times(1)).getRates();
+        assertEquals(next, rateSnapshotService.getSourceVersion());
+        assertTrue(rateSnapshotService.peekSnapshot().isPresent());
+    }
+
+    @Test
+    @DisplayName("an expired snapshot is served, flagged with its age, while the upstream is down")
+    void testGetExchangeRate_ServesStaleSnapshotWhileUpstreamFails() {
+        rateSnapshotService.publish(mockRates);
+        when(exchangeRateCacheService.getRates()).thenReturn(Optional.empty());
+        when(fixerRestClient.getLatestRates()).thenThrow(new ExternalApiException("Fixer API is down"));
+        ReflectionTestUtils.setField(rateSnapshotService, "localTtlSeconds", 0L);
+        try {
+            ExchangeRateResponse response = conversionService.getExchangeRate("USD", "GBP");
+
+            assertEquals(0, new BigDecimal("0.818182").compareTo(response.getExchangeRate()));
+            assertNotNull(response.getStaleRateAgeSeconds());
+            // the reload runs in the background and its failure does not reach the caller
+            verify(fixerRestClient, timeout(2000)).getLatestRates();
+
+            ReflectionTestUtils.setField(rateSnapshotService, "maxStaleSeconds", 0L);
+            assertThrows(ExternalApiException.class, () -> conversionService.getExchangeRate("USD", "GBP"));
+        } finally {
+            ReflectionTestUtils.setField(rateSnapshotService, "localTtlSeconds", 60L);
+            ReflectionTestUtils.setField(rateSnapshotService, "maxStaleSeconds", 3600L);
+        }
+    }
+
+    @Test
+    @DisplayName("convertAt - uses the snapshot in effect at the timestamp")
+    void testConvertAt_UsesSnapshotInEffect() {
+        Instant fetchedAt = Instant.parse("2020-01-01T00:00:00Z");
+        Map<String, BigDecimal> rates = Map.of(
+                "USD", new BigDecimal("1.1"),
+                "EUR", new BigDecimal("1.0"),
+                "GBP", new BigDecimal("0.9"));
+        rateSnapshotRepository.save(new StoredRateSnapshot(null, fetchedAt, rates.size(),
+                RateSnapshotCodec.encode(rates, fetchedAt)));
+
+        HistoricalRateResponse response = conversionService.convertAt(
+                new BigDecimal("100"), "USD", "GBP", Instant.parse("2020-01-01T06:00:00Z"));
+
+        assertEquals(new BigDecimal("0.818182"), response.getExchangeRate());
+        assertEquals(new BigDecimal("81.818200"), response.getConvertedAmount());
+        assertEquals(fetchedAt, response.getRatesFetchedAt());
+
+        assertThrows(HistoricalRateNotFoundException.class,
+                () -> conversionService.getHistoricalExchangeRate("USD", "GBP", Instant.parse("2019-12-31T23:59:59Z")));
+    }
+
+    private double bulkRows(String code) {
+        return meterRegistry.counter("fxtrackr.bulk.rows", "code", code).count();
     }
-}
\ No newline at end of file
+}
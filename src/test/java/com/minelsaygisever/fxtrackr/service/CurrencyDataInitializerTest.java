@@ -0,0 +1,72 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.Currency;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the currency bootstrap diff in CurrencyDataInitializer.
+ */
+class CurrencyDataInitializerTest {
+
+    @Test
+    @DisplayName("new codes are inserted, renamed ones updated and dropped active ones deactivated")
+    void testDiffBetweenStoredCurrenciesAndSymbols() {
+        List<Currency> existing = List.of(
+                new Currency("USD", "United States Dollar", true),
+                new Currency("EUR", "Euro", true),
+                new Currency("HRK", "Croatian Kuna", true),
+                new Currency("ZWL", "Zimbabwean Dollar", false));
+        Map<String, String> symbols = Map.of(
+                "USD", "United States Dollar",
+                "EUR", "European Euro",
+                "GBP", "British Pound Sterling");
+
+        CurrencyDataInitializer.CurrencyDiff diff = CurrencyDataInitializer.CurrencyDiff.between(existing, symbols);
+
+        assertEquals(Map.of("GBP", "British Pound Sterling"), diff.getInserted());
+        assertEquals(Map.of("EUR", "European Euro"), diff.getRenamed());
+        // ZWL is already inactive
+        assertEquals(Set.of("HRK"), diff.getDeactivated());
+        assertTrue(diff.getReactivated().isEmpty());
+        assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    @DisplayName("a currency the sync deactivated is reactivated once Fixer lists it again")
+    void testSyncDeactivatedCurrencyIsReactivated() {
+        List<Currency> existing = List.of(new Currency("TRY", "Turkish Lira", false, true));
+
+        CurrencyDataInitializer.CurrencyDiff diff =
+                CurrencyDataInitializer.CurrencyDiff.between(existing, Map.of("TRY", "Turkish Lira"));
+
+        assertEquals(Set.of("TRY"), diff.getReactivated());
+        assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    @DisplayName("a currency deactivated by hand stays inactive while Fixer lists it")
+    void testHandDeactivatedCurrencyStaysInactive() {
+        List<Currency> existing = List.of(new Currency("TRY", "Turkish Lira", false, false));
+
+        CurrencyDataInitializer.CurrencyDiff diff =
+                CurrencyDataInitializer.CurrencyDiff.between(existing, Map.of("TRY", "Turkish Lira"));
+
+        assertTrue(diff.getReactivated().isEmpty());
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    @DisplayName("unchanged symbols give an empty diff")
+    void testUnchangedSymbols() {
+        List<Currency> existing = List.of(new Currency("USD", "United States Dollar", true));
+
+        assertTrue(CurrencyDataInitializer.CurrencyDiff.between(existing, Map.of("USD", "United States Dollar")).isEmpty());
+    }
+}
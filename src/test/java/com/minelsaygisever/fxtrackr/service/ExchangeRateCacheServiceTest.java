@@ -0,0 +1,125 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.domain.RateSnapshotCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ExchangeRateCacheService and the Redis counters it publishes.
+ */
+class ExchangeRateCacheServiceTest {
+
+    private static final Map<String, BigDecimal> RATES = Map.of(
+            "EUR", BigDecimal.ONE,
+            "USD", new BigDecimal("1.083921"));
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExchangeRateCacheService cacheService = new ExchangeRateCacheService(redisTemplate, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cacheService, "cacheTtlMinutes", 60L);
+        ReflectionTestUtils.setField(cacheService, "writeLegacyHash", false);
+        when(redisTemplate.<String, Object>opsForHash()).thenReturn(hashOperations);
+    }
+
+    @Test
+    @DisplayName("rates read from the binary snapshot count as a hit")
+    void testReadHit() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(RateSnapshotCodec.encode(RATES, Instant.now()));
+
+        Optional<Map<String, BigDecimal>> rates = cacheService.getRates();
+
+        assertTrue(rates.isPresent());
+        assertEquals(0, new BigDecimal("1.083921").compareTo(rates.get().get("USD")));
+        assertEquals(1, reads("hit"));
+        assertEquals(0, reads("miss"));
+    }
+
+    @Test
+    @DisplayName("no snapshot and no legacy hash count as a miss")
+    void testReadMiss() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(null);
+        when(hashOperations.entries("exchange_rates:latest")).thenReturn(Map.of());
+
+        assertEquals(Optional.empty(), cacheService.getRates());
+
+        assertEquals(1, reads("miss"));
+        assertEquals(0, reads("hit"));
+    }
+
+    @Test
+    @DisplayName("any Redis failure on a read is counted and reported as no rates")
+    void testReadFailure() {
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"))
+                .thenThrow(new QueryTimeoutException("Command timed out"));
+
+        assertEquals(Optional.empty(), cacheService.getRates());
+        assertEquals(Optional.empty(), cacheService.getRates());
+
+        assertEquals(2, reads("failure"));
+    }
+
+    @Test
+    @DisplayName("a fenced write is counted as success, as fenced once superseded, and as failure without Redis")
+    void testFencedWrites() {
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any()))
+                .thenReturn(5L)
+                .thenReturn(-1L)
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        assertEquals(5, cacheService.updateRates(RATES, 3));
+        assertEquals(0, cacheService.updateRates(RATES, 2));
+        assertEquals(0, cacheService.updateRates(RATES, 3));
+
+        assertEquals(1, writes("success"));
+        assertEquals(1, writes("fenced"));
+        assertEquals(1, writes("failure"));
+    }
+
+    @Test
+    @DisplayName("an unfenced write that fails in Redis is counted as a failure")
+    void testUnfencedWriteFailure() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenThrow(new QueryTimeoutException("Command timed out"));
+
+        assertEquals(0, cacheService.updateRates(RATES));
+
+        assertEquals(1, writes("failure"));
+        assertEquals(0, writes("success"));
+    }
+
+    private double reads(String result) {
+        return meterRegistry.counter("fxtrackr.redis.rates.reads", "result", result).count();
+    }
+
+    private double writes(String result) {
+        return meterRegistry.counter("fxtrackr.redis.rates.writes", "result", result).count();
+    }
+}
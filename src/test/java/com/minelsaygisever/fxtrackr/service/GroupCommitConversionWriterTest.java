@@ -0,0 +1,106 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.client.FixerRestClient;
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import com.minelsaygisever.fxtrackr.repository.CurrencyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for GroupCommitConversionWriter against the H2 schema.
+ */
+@SpringBootTest(properties = "conversion.write-mode=group-commit")
+@ActiveProfiles("test")
+class GroupCommitConversionWriterTest {
+
+    @MockBean
+    private ExchangeRateCacheService exchangeRateCacheService;
+
+    @MockBean
+    private CurrencyRepository currencyRepository;
+
+    @MockBean
+    private FixerRestClient fixerRestClient;
+
+    @Autowired
+    private ConversionWriter conversionWriter;
+
+    @Autowired
+    private CurrencyConversionRepository currencyConversionRepository;
+
+    @AfterEach
+    void tearDown() {
+        currencyConversionRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("concurrent writes are each committed before their caller returns")
+    void testConcurrentWritesAreCommittedOnReturn() throws Exception {
+        assertTrue(conversionWriter instanceof GroupCommitConversionWriter);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> ids = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                ids.add(pool.submit(() -> {
+                    String id = conversionWriter.write(conversion()).getId();
+                    // Visible to a new transaction as soon as write() returns
+                    assertTrue(currencyConversionRepository.existsById(id));
+                    return id;
+                }));
+            }
+            for (Future<String> id : ids) {
+                assertNotNull(id.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(40, currencyConversionRepository.count());
+    }
+
+    @Test
+    @DisplayName("a failed batch is retried one by one, failing only the bad conversion")
+    void testFailedBatchIsRetriedIndividually() {
+        CurrencyConversion bad = conversion();
+        bad.setSourceCurrency(null);
+        List<GroupCommitConversionWriter.PendingConversion> batch = List.of(
+                new GroupCommitConversionWriter.PendingConversion(conversion()),
+                new GroupCommitConversionWriter.PendingConversion(bad),
+                new GroupCommitConversionWriter.PendingConversion(conversion()));
+
+        ((GroupCommitConversionWriter) conversionWriter).commit(batch);
+
+        assertDoesNotThrow(() -> batch.get(0).committed.join());
+        assertTrue(batch.get(1).committed.isCompletedExceptionally());
+        assertDoesNotThrow(() -> batch.get(2).committed.join());
+        assertTrue(currencyConversionRepository.existsById(batch.get(0).conversion.getId()));
+        assertTrue(currencyConversionRepository.existsById(batch.get(2).conversion.getId()));
+        assertEquals(2, currencyConversionRepository.count());
+    }
+
+    private static CurrencyConversion conversion() {
+        return CurrencyConversion.builder()
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .sourceAmount(new BigDecimal("100.000000"))
+                .convertedAmount(new BigDecimal("92.340000"))
+                .exchangeRate(new BigDecimal("0.923400"))
+                .build();
+    }
+}
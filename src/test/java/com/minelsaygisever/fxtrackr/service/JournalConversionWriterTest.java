@@ -0,0 +1,184 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.client.FixerRestClient;
+import com.minelsaygisever.fxtrackr.domain.CurrencyConversion;
+import com.minelsaygisever.fxtrackr.repository.CurrencyConversionRepository;
+import com.minelsaygisever.fxtrackr.repository.CurrencyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for JournalConversionWriter against the H2 schema.
+ * Restarts are simulated with writers of their own on a temporary journal, drained by hand.
+ */
+@SpringBootTest(properties = {
+        "conversion.write-mode=journal",
+        "conversion.journal.dir=${java.io.tmpdir}/fxtrackr-journal-test"
+})
+@ActiveProfiles("test")
+class JournalConversionWriterTest {
+
+    @MockBean
+    private ExchangeRateCacheService exchangeRateCacheService;
+
+    @MockBean
+    private CurrencyRepository currencyRepository;
+
+    @MockBean
+    private FixerRestClient fixerRestClient;
+
+    @Autowired
+    private ConversionWriter conversionWriter;
+
+    @Autowired
+    private CurrencyConversionRepository currencyConversionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    Path journalDir;
+
+    @AfterEach
+    void tearDown() {
+        currencyConversionRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("a written conversion is pending until drained, then in the database")
+    void testWriteIsPendingUntilDrained() throws Exception {
+        assertTrue(conversionWriter instanceof JournalConversionWriter);
+
+        JournalConversionWriter writer = newWriter(100);
+        writer.recover();
+        try {
+            String id = writer.write(conversion()).getId();
+
+            assertTrue(writer.findPending(id).isPresent());
+            assertFalse(currencyConversionRepository.existsById(id));
+
+            writer.drain();
+
+            assertFalse(writer.findPending(id).isPresent());
+            assertTrue(currencyConversionRepository.existsById(id));
+        } finally {
+            writer.closeJournal();
+        }
+    }
+
+    @Test
+    @DisplayName("conversions not drained before a restart are replayed on reopen")
+    void testReplayAfterReopen() throws Exception {
+        JournalConversionWriter writer = newWriter(100);
+        writer.recover();
+        String first = writer.write(conversion()).getId();
+        String second = writer.write(conversion()).getId();
+        // Crash: the journal is closed without draining
+        writer.closeJournal();
+
+        JournalConversionWriter reopened = newWriter(100);
+        reopened.recover();
+        try {
+            assertEquals(new BigDecimal("92.340000"), reopened.findPending(first).orElseThrow().getConvertedAmount());
+            assertTrue(reopened.findPending(second).isPresent());
+            assertEquals(0, currencyConversionRepository.count());
+
+            reopened.drain();
+
+            assertTrue(currencyConversionRepository.existsById(first));
+            assertTrue(currencyConversionRepository.existsById(second));
+            assertFalse(reopened.findPending(first).isPresent());
+        } finally {
+            reopened.closeJournal();
+        }
+    }
+
+    @Test
+    @DisplayName("a batch committed before a crash but not checkpointed is not inserted twice")
+    void testReplayOfCommittedBatch() throws Exception {
+        JournalConversionWriter writer = newWriter(100);
+        writer.recover();
+        CurrencyConversion committed = writer.write(conversion());
+        String missing = writer.write(conversion()).getId();
+        // The first conversion reached the database, then the process died before the checkpoint
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                currencyConversionRepository.insertAll(List.of(committed)));
+        writer.closeJournal();
+
+        JournalConversionWriter reopened = newWriter(100);
+        reopened.recover();
+        try {
+            reopened.drain();
+
+            assertEquals(2, currencyConversionRepository.count());
+            assertTrue(currencyConversionRepository.existsById(missing));
+            assertFalse(reopened.findPending(committed.getId()).isPresent());
+            assertFalse(reopened.findPending(missing).isPresent());
+        } finally {
+            reopened.closeJournal();
+        }
+    }
+
+    @Test
+    @DisplayName("beyond the backlog limit conversions are written directly")
+    void testFullBacklogWritesDirectly() throws Exception {
+        JournalConversionWriter writer = newWriter(1);
+        writer.recover();
+        try {
+            String journaled = writer.write(conversion()).getId();
+            String direct = writer.write(conversion()).getId();
+
+            assertTrue(writer.findPending(journaled).isPresent());
+            assertFalse(writer.findPending(direct).isPresent());
+            assertTrue(currencyConversionRepository.existsById(direct));
+
+            // Once drained, the journal takes conversions again
+            writer.drain();
+            String next = writer.write(conversion()).getId();
+
+            assertTrue(writer.findPending(next).isPresent());
+        } finally {
+            writer.closeJournal();
+        }
+    }
+
+    private JournalConversionWriter newWriter(long maxBacklog) {
+        JournalConversionWriter writer =
+                new JournalConversionWriter(currencyConversionRepository, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(writer, "journalDirectory", journalDir.toString());
+        ReflectionTestUtils.setField(writer, "segmentRecords", 16);
+        ReflectionTestUtils.setField(writer, "fsync", "never");
+        ReflectionTestUtils.setField(writer, "drainBatchSize", 10);
+        ReflectionTestUtils.setField(writer, "maxBacklog", maxBacklog);
+        return writer;
+    }
+
+    private static CurrencyConversion conversion() {
+        return CurrencyConversion.builder()
+                .sourceCurrency("USD")
+                .targetCurrency("EUR")
+                .sourceAmount(new BigDecimal("100.000000"))
+                .convertedAmount(new BigDecimal("92.340000"))
+                .exchangeRate(new BigDecimal("0.923400"))
+                .build();
+    }
+}
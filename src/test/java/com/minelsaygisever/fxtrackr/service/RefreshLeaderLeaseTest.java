@@ -0,0 +1,61 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RefreshLeaderLease.
+ */
+class RefreshLeaderLeaseTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+    private final RefreshLeaderLease lease = new RefreshLeaderLease(redisTemplate, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(lease, "leaseMillis", 100L);
+        ReflectionTestUtils.setField(lease, "renewIntervalMillis", 30L);
+    }
+
+    @Test
+    @DisplayName("a granted lease makes this instance leader with its fencing token until another holds it")
+    void testGrantedAndLost() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(7L, 7L, 0L);
+
+        lease.renew();
+        assertEquals(OptionalLong.of(7), lease.currentToken());
+        lease.renew();
+        assertTrue(lease.isLeader());
+        lease.renew();
+        assertFalse(lease.isLeader());
+    }
+
+    @Test
+    @DisplayName("without Redis the leadership lapses once the lease could have expired")
+    void testLapsesWithoutRedis() throws InterruptedException {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any()))
+                .thenReturn(3L)
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        lease.renew();
+        lease.renew();
+        assertTrue(lease.isLeader());
+
+        Thread.sleep(150);
+        assertFalse(lease.isLeader());
+    }
+}
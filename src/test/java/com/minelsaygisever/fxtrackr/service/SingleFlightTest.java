@@ -0,0 +1,84 @@
+package com.minelsaygisever.fxtrackr.service;
+
+import com.minelsaygisever.fxtrackr.exception.ExternalApiException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SingleFlight.
+ */
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("concurrent callers share one execution and its result")
+    void testConcurrentCallersShareResult() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute(() -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "rates";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(pool.submit(() -> flight.execute(() -> {
+                    executions.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (flight.getCoalescedCount() < 3) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals("rates", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("rates", follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+            assertEquals(3, flight.getCoalescedCount());
+            assertFalse(flight.isInFlight());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("a failure propagates and the next call starts a new execution")
+    void testFailurePropagatesThenReset() {
+        SingleFlight<String> flight = new SingleFlight<>();
+
+        assertThrows(ExternalApiException.class,
+                () -> flight.execute(() -> { throw new ExternalApiException("Fixer API failed"); }));
+
+        assertFalse(flight.isInFlight());
+        assertEquals("rates", flight.execute(() -> "rates"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}